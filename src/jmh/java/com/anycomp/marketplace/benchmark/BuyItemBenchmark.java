@@ -0,0 +1,86 @@
+package com.anycomp.marketplace.benchmark;
+
+import com.anycomp.marketplace.MarketplaceApplication;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.service.BuyerService;
+import com.anycomp.marketplace.service.ItemService;
+import com.anycomp.marketplace.service.PurchaseService;
+import com.anycomp.marketplace.service.SellerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// The full buy path (stock check, purchase insert, totals, rollups, leaderboard) against
+// the in-memory H2 database of the test profile. No web server is started.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuyItemBenchmark {
+
+    private static final int STOCK = 1_000_000;
+
+    private ConfigurableApplicationContext context;
+    private PurchaseService purchaseService;
+    private ItemService itemService;
+    private Long buyerId;
+    private Long itemId;
+
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(MarketplaceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN")
+                .run();
+        purchaseService = context.getBean(PurchaseService.class);
+        itemService = context.getBean(ItemService.class);
+
+        Seller seller = context.getBean(SellerService.class)
+                .createSeller(new Seller("Benchmark Seller", "bench-seller@example.com"));
+        Buyer buyer = context.getBean(BuyerService.class)
+                .createBuyer(new Buyer("Benchmark Buyer", "bench-buyer@example.com"));
+        buyerId = buyer.getId();
+        itemId = itemService.createItem(new Item("Benchmark Item", "Stocked for the benchmark", 9.99, STOCK, null),
+                seller.getId()).getId();
+    }
+
+
+    // Top the item back up so a long run never fails on stock
+    @Setup(Level.Iteration)
+    public void restock() {
+        itemService.updateItemQuantity(itemId, STOCK);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+
+    @Benchmark
+    public Purchase buyItem() {
+        return purchaseService.buyItem(buyerId, itemId, 1);
+    }
+}
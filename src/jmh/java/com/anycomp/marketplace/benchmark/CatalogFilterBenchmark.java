@@ -0,0 +1,145 @@
+package com.anycomp.marketplace.benchmark;
+
+import com.anycomp.marketplace.MarketplaceApplication;
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.ItemFilter;
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.service.CatalogIndex;
+import com.anycomp.marketplace.service.ItemService;
+import com.anycomp.marketplace.service.SellerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Combined item filters over a 1M-item catalog: the in-memory bitmap index (through
+// ItemService, including the fetch of the page's rows) against the filtered JPQL queries it
+// replaces. Runs on the test profile's in-memory H2; pass -Dspring.datasource.url=... (and
+// credentials) to compare against PostgreSQL instead.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CatalogFilterBenchmark {
+
+    private static final int ITEMS = 1_000_000;
+    private static final int SELLERS = 100;
+    private static final int PAGE = 20;
+    private static final int INSERT_CHUNK = 10_000;
+
+    @Param({"index", "sql"})
+    public String engine;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ItemRepository itemRepository;
+    private Long sellerId;
+
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(MarketplaceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN")
+                .run();
+        itemService = context.getBean(ItemService.class);
+        itemRepository = context.getBean(ItemRepository.class);
+
+        SellerService sellerService = context.getBean(SellerService.class);
+        List<Long> sellerIds = new ArrayList<>();
+        for (int i = 0; i < SELLERS; i++) {
+            sellerIds.add(sellerService.createSeller(
+                    new Seller("Catalog Seller " + i, "catalog-seller-" + i + "@example.com")).getId());
+        }
+        sellerId = sellerIds.get(SELLERS / 2);
+
+        // Prices log-uniform from 1 to 1000, a fifth of the catalog out of stock
+        Random random = new Random(42);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+        for (int id = 1; id <= ITEMS; id++) {
+            double price = Math.round(Math.pow(1000, random.nextDouble()) * 100) / 100.0;
+            int quantity = random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(100);
+            rows.add(new Object[]{(long) id, "Item " + id, "Catalog benchmark item", price, quantity,
+                    sellerIds.get(random.nextInt(SELLERS))});
+            if (rows.size() == INSERT_CHUNK || id == ITEMS) {
+                jdbc.batchUpdate("INSERT INTO items (id, name, description, price, quantity, seller_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        context.getBean(CatalogIndex.class).rebuild();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+
+    @Benchmark
+    public List<ItemSummary> sellerInStockCheapestFirst() {
+        return run(new ItemFilter(sellerId, true, 10.0, 100.0, null, ItemFilter.Sort.PRICE_ASC));
+    }
+
+
+    @Benchmark
+    public List<ItemSummary> priceRangeInStockById() {
+        return run(new ItemFilter(null, true, 10.0, 20.0, null, ItemFilter.Sort.ID));
+    }
+
+
+    @Benchmark
+    public List<ItemSummary> mostExpensiveLowStock() {
+        return run(new ItemFilter(null, true, null, null, 5, ItemFilter.Sort.PRICE_DESC));
+    }
+
+
+    @Benchmark
+    public List<ItemSummary> sellerOutOfStockById() {
+        return run(new ItemFilter(sellerId, false, null, null, null, ItemFilter.Sort.ID));
+    }
+
+
+    private List<ItemSummary> run(ItemFilter filter) {
+        if ("index".equals(engine)) {
+            CursorPage<ItemSummary> page = itemService.filterItems(filter, null, PAGE);
+            return page.getContent();
+        }
+        Pageable limit = PageRequest.of(0, PAGE + 1);
+        return switch (filter.sort()) {
+            case ID -> itemRepository.filterAfterId(filter.sellerId(), filter.inStock(), filter.minPrice(),
+                    filter.maxPrice(), filter.maxQuantity(), 0L, limit);
+            case PRICE_ASC -> itemRepository.filterByPriceAsc(filter.sellerId(), filter.inStock(), filter.minPrice(),
+                    filter.maxPrice(), filter.maxQuantity(), null, 0L, limit);
+            case PRICE_DESC -> itemRepository.filterByPriceDesc(filter.sellerId(), filter.inStock(),
+                    filter.minPrice(), filter.maxPrice(), filter.maxQuantity(), null, 0L, limit);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.anycomp.marketplace.benchmark;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Entity construction on the buy path: timestamp plus totalPrice from item price and quantity
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class PurchaseConstructionBenchmark {
+
+    private Buyer buyer;
+    private Item item;
+    private int quantity;
+
+
+    @Setup
+    public void setup() {
+        Seller seller = new Seller("Benchmark Seller", "seller@example.com");
+        buyer = new Buyer("Benchmark Buyer", "buyer@example.com");
+        item = new Item("Benchmark Item", "Description", 19.99, 1_000, seller);
+    }
+
+
+    @Benchmark
+    public Purchase construct() {
+        quantity = quantity % 10 + 1;
+        return new Purchase(buyer, item, quantity);
+    }
+
+
+    @Benchmark
+    public Double constructAndTotal() {
+        quantity = quantity % 10 + 1;
+        Purchase purchase = new Purchase(buyer, item, quantity);
+        purchase.setQuantity(quantity + 1);
+        return purchase.getTotalPrice();
+    }
+}
@@ -0,0 +1,64 @@
+package com.anycomp.marketplace.benchmark;
+
+import com.anycomp.marketplace.controller.BuyerController;
+import com.anycomp.marketplace.controller.ItemController;
+import com.anycomp.marketplace.controller.PurchaseController;
+import com.anycomp.marketplace.controller.SellerController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Handler lookup for the list endpoints, without the service layer or a database.
+// The controllers are registered unwired; only their @RequestMapping metadata is used.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class RequestMappingBenchmark {
+
+    @Param({"/api/items", "/api/items/seller/42", "/api/purchases", "/api/purchases/buyer/42",
+            "/api/sellers", "/api/buyers/42/purchases"})
+    private String path;
+
+    private RequestMappingHandlerMapping handlerMapping;
+    private MockHttpServletRequest request;
+
+
+    @Setup
+    public void setup() {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.registerSingleton("itemController", ItemController.class);
+        context.registerSingleton("purchaseController", PurchaseController.class);
+        context.registerSingleton("sellerController", SellerController.class);
+        context.registerSingleton("buyerController", BuyerController.class);
+        context.refresh();
+
+        handlerMapping = new RequestMappingHandlerMapping();
+        handlerMapping.setApplicationContext(context);
+        handlerMapping.afterPropertiesSet();
+
+        request = new MockHttpServletRequest("GET", path);
+        request.addParameter("page", "0");
+        request.addParameter("size", "20");
+    }
+
+
+    @Benchmark
+    public HandlerExecutionChain lookup() throws Exception {
+        ServletRequestPathUtils.parseAndCache(request);
+        return handlerMapping.getHandler(request);
+    }
+}
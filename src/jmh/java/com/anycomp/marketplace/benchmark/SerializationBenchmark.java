@@ -0,0 +1,91 @@
+package com.anycomp.marketplace.benchmark;
+
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON encoding of one list-endpoint page, as the message converter writes it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    // Configured like Boot's auto-configured mapper
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+
+    private Page<Item> items;
+    private Page<ItemSummary> summaries;
+    private Page<Purchase> purchases;
+
+
+    @Setup
+    public void setup() {
+        Seller seller = new Seller("Benchmark Seller", "seller@example.com");
+        seller.setId(1L);
+        Buyer buyer = new Buyer("Benchmark Buyer", "buyer@example.com");
+        buyer.setId(1L);
+
+        List<Item> itemList = new ArrayList<>(pageSize);
+        List<ItemSummary> summaryList = new ArrayList<>(pageSize);
+        List<Purchase> purchaseList = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Item item = new Item("Item " + i, "Description of item " + i, 10.0 + i, 100, seller);
+            item.setId((long) i);
+            itemList.add(item);
+            summaryList.add(ItemSummary.from(item));
+            Purchase purchase = new Purchase(buyer, item, 1 + i % 5);
+            purchase.setId((long) i);
+            purchaseList.add(purchase);
+        }
+        PageRequest pageable = PageRequest.of(0, pageSize);
+        items = new PageImpl<>(itemList, pageable, 10_000);
+        summaries = new PageImpl<>(summaryList, pageable, 10_000);
+        purchases = new PageImpl<>(purchaseList, pageable, 10_000);
+    }
+
+
+    @Benchmark
+    public byte[] itemPage() throws Exception {
+        return objectMapper.writeValueAsBytes(items);
+    }
+
+
+    @Benchmark
+    public byte[] itemSummaryPage() throws Exception {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+
+    @Benchmark
+    public byte[] purchasePage() throws Exception {
+        return objectMapper.writeValueAsBytes(purchases);
+    }
+}
@@ -0,0 +1,183 @@
+package com.anycomp.marketplace.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Sheds API load when the backend slows down, instead of letting requests queue for a
+ * database connection.
+ *
+ * The number of requests in flight is capped by a {@link GradientLimit} that tracks
+ * request latency: when latency climbs above its recent baseline, or requests start
+ * failing, the cap comes down. A request over the cap is answered 503 with Retry-After
+ * straight away, without waiting. Checkout may use the whole limit; browsing and
+ * statistics are admitted only up to their share of it, so they are shed first.
+ *
+ * Streaming endpoints (the seller low-stock feed, the purchase export) and the health
+ * check are not limited, and async requests give their slot back when the handler
+ * returns.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 5)
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    enum Priority {
+        CHECKOUT, BROWSE, STATS;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final List<PathPattern> EXEMPT = patterns(
+            "/api/sellers/{sellerId}/low-stock/feed",
+            "/api/purchases/export",
+            "/api/purchases/health");
+
+    private static final List<PathPattern> STATS_PATHS = patterns(
+            "/api/purchases/stats/**",
+            "/api/items/count/**",
+            "/api/sellers/{id}/revenue",
+            "/api/sellers/{id}/sales/**",
+            "/api/sellers/with-sales",
+            "/api/buyers/{id}/spending");
+
+    @Value("${marketplace.concurrency.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${marketplace.concurrency.adaptive.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${marketplace.concurrency.adaptive.min-limit:4}")
+    private int minLimit;
+
+    @Value("${marketplace.concurrency.adaptive.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${marketplace.concurrency.adaptive.window-ms:100}")
+    private long windowMs;
+
+    @Value("${marketplace.concurrency.adaptive.min-window-samples:10}")
+    private int minWindowSamples;
+
+    @Value("${marketplace.concurrency.adaptive.browse-share:0.9}")
+    private double browseShare;
+
+    @Value("${marketplace.concurrency.adaptive.stats-share:0.5}")
+    private double statsShare;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private GradientLimit limit;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+    private byte[] rejectionBody;
+
+
+    // Tomcat also inspects filter instances for @PostConstruct and refuses checked exceptions
+    @PostConstruct
+    void init() {
+        limit = new GradientLimit(initialLimit, minLimit, maxLimit, windowMs * 1_000_000L, minWindowSamples);
+        shares.put(Priority.CHECKOUT, 1.0);
+        shares.put(Priority.BROWSE, browseShare);
+        shares.put(Priority.STATS, statsShare);
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, meterRegistry.counter("marketplace.concurrency.rejected", "priority", priority.tag()));
+        }
+        Gauge.builder("marketplace.concurrency.limit", limit, GradientLimit::limit).register(meterRegistry);
+        Gauge.builder("marketplace.concurrency.in.flight", limit, GradientLimit::inFlight).register(meterRegistry);
+        try {
+            rejectionBody = objectMapper.writeValueAsBytes(
+                    Map.of("status", "error", "message", "Server busy, please retry"));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !request.getRequestURI().startsWith("/api/")) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        return EXEMPT.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request);
+        if (!limit.tryAcquire(shares.get(priority))) {
+            rejected.get(priority).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(rejectionBody.length);
+            response.getOutputStream().write(rejectionBody);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (request.isAsyncStarted()) {
+                limit.release();
+            } else {
+                limit.release(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+
+    private static Priority priorityOf(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.startsWith("/api/purchases") && !"GET".equals(request.getMethod())) {
+            return Priority.CHECKOUT;
+        }
+        PathContainer path = PathContainer.parsePath(uri);
+        if (STATS_PATHS.stream().anyMatch(pattern -> pattern.matches(path))) {
+            return Priority.STATS;
+        }
+        return Priority.BROWSE;
+    }
+
+
+    private static List<PathPattern> patterns(String... paths) {
+        return Stream.of(paths).map(PathPatternParser.defaultInstance::parse).toList();
+    }
+}
@@ -0,0 +1,145 @@
+package com.anycomp.marketplace.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits at most one API request per Hikari connection at a time.
+ *
+ * Meant for virtual-thread mode ({@code spring.threads.virtual.enabled=true} on Java 21+),
+ * where request concurrency is no longer capped by the Tomcat pool. Excess requests park
+ * cheaply on the semaphore instead of queueing inside Hikari's
+ * {@code connection-timeout}. A request that waits longer than the queue timeout gets a
+ * 503 with Retry-After rather than a 500 from a connection timeout.
+ *
+ * An async request (a streamed export) keeps its permit until the async cycle completes,
+ * since it keeps using the database after the first dispatch returns. Event streams are
+ * the exception: they only read during the first dispatch and then stay open for long
+ * stretches, so their permit is released when that dispatch returns.
+ */
+@Component
+public class DatabasePermitFilter extends OncePerRequestFilter {
+
+    @Value("${marketplace.concurrency.db-permits.enabled:${spring.threads.virtual.enabled:false}}")
+    private boolean enabled;
+
+    @Value("${marketplace.concurrency.db-permits:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int permits;
+
+    @Value("${marketplace.concurrency.queue-timeout-ms:15000}")
+    private long queueTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Semaphore semaphore;
+
+
+    @PostConstruct
+    void init() {
+        semaphore = new Semaphore(permits, true);
+        Gauge.builder("marketplace.db.permits.available", semaphore, Semaphore::availablePermits)
+                .register(meterRegistry);
+        Gauge.builder("marketplace.db.permits.waiting", semaphore, Semaphore::getQueueLength)
+                .register(meterRegistry);
+    }
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    Map.of("status", "error", "message", "Server busy, please retry"));
+            return;
+        }
+        boolean releaseNow = true;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted() && !isEventStream(request, response)) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+                releaseNow = false;
+            }
+        } finally {
+            if (releaseNow) {
+                semaphore.release();
+            }
+        }
+    }
+
+
+    // An emitter writes its headers with the first event, so also go by what the handler produces
+    private static boolean isEventStream(HttpServletRequest request, HttpServletResponse response) {
+        String contentType = response.getContentType();
+        if (contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE)) {
+            return true;
+        }
+        return request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE) instanceof Set<?> produces
+                && produces.contains(MediaType.TEXT_EVENT_STREAM);
+    }
+
+
+    // Errors and timeouts end in onComplete as well
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            semaphore.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A further async cycle replaces the listeners; carry this one over
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
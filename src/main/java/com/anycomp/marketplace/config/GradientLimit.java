@@ -0,0 +1,144 @@
+package com.anycomp.marketplace.config;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrency limit that follows latency, after the gradient rule of Netflix's
+ * concurrency-limits library.
+ *
+ * Latency is averaged over short windows and compared with a slow moving average of those
+ * windows. While the two agree the limit grows by about its square root per window; when
+ * the short-term average rises above the long-term one the limit shrinks in proportion.
+ * A window with a failed request backs the limit off multiplicatively. Windows in which
+ * the limit was never approached leave it alone, so a quiet period cannot inflate it.
+ *
+ * Admission and release are lock-free; the limit is recomputed by whichever release
+ * closes a window.
+ */
+final class GradientLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double BACKOFF = 0.9;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOWS = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private volatile int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder windowLatency = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowPeak = new AtomicInteger();
+    private final AtomicBoolean windowDropped = new AtomicBoolean();
+    private final ReentrantLock windowLock = new ReentrantLock();
+    private volatile long windowStart = System.nanoTime();
+    private double longLatency;
+    // Fractional limit, so small limits can grow by less than one per window
+    private double estimate;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, long windowNanos, int minWindowSamples) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limit needs 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimate;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+    }
+
+
+    // Admits a request if fewer than share * limit are running; never blocks
+    boolean tryAcquire(double share) {
+        int cap = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= cap) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowPeak.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+
+    // Releases without a sample, for requests whose latency says nothing about the backend
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+
+    void release(long latencyNanos, boolean dropped) {
+        inFlight.decrementAndGet();
+        windowLatency.add(latencyNanos);
+        windowSamples.increment();
+        if (dropped) {
+            windowDropped.set(true);
+        }
+        long now = System.nanoTime();
+        if (now - windowStart >= windowNanos && windowSamples.sum() >= minWindowSamples && windowLock.tryLock()) {
+            try {
+                if (now - windowStart >= windowNanos) {
+                    windowStart = now;
+                    closeWindow();
+                }
+            } finally {
+                windowLock.unlock();
+            }
+        }
+    }
+
+
+    int limit() {
+        return limit;
+    }
+
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+
+    private void closeWindow() {
+        long samples = windowSamples.sumThenReset();
+        long latency = windowLatency.sumThenReset();
+        int peak = windowPeak.getAndSet(inFlight.get());
+        boolean dropped = windowDropped.getAndSet(false);
+        if (samples == 0) {
+            return;
+        }
+
+        double shortLatency = (double) latency / samples;
+        if (longLatency == 0) {
+            longLatency = shortLatency;
+        } else {
+            longLatency += (shortLatency - longLatency) / LONG_WINDOWS;
+        }
+        // After a slowdown passes, let the baseline come back down rather than wait it out
+        if (longLatency > 2 * shortLatency) {
+            longLatency *= 0.95;
+        }
+
+        if (dropped) {
+            estimate *= BACKOFF;
+        } else if (peak < limit / 2) {
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / shortLatency));
+            double target = estimate * gradient + Math.sqrt(estimate);
+            estimate += (target - estimate) * SMOOTHING;
+        }
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate));
+        limit = (int) estimate;
+    }
+}
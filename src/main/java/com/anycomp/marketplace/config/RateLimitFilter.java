@@ -0,0 +1,307 @@
+package com.anycomp.marketplace.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-client token-bucket rate limiting for the endpoints that cost a database connection
+ * on every call: checkout, purchase validation and search.
+ *
+ * Each endpoint group has its own buckets (see {@link TokenBuckets}). A request is keyed
+ * by the buyer it names, so buyers behind one load balancer or NAT address do not share a
+ * bucket; only a request without a buyer id (search, a batch checkout) falls back to its
+ * client address. Checkout and validation carry the buyer in a small JSON body, which is
+ * read here once and handed on to the controller. The client address is the proxy's
+ * unless server.forward-headers-strategy lets the container take it from X-Forwarded-For.
+ * When the buckets are full, new keys are refused until the sweep makes room. A rejected
+ * request never reaches the database: it gets a 429 with Retry-After and a fixed body.
+ *
+ * The filter runs ahead of the connection permits and SQL statistics filters, so rejected
+ * requests neither hold a permit nor show up as SQL.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String BUYER_HEADER = "X-Buyer-Id";
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    // Bodies past this size are not inspected for a buyer id
+    private static final int MAX_INSPECTED_BODY = 16 * 1024;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // Retry-After for a new key that finds the buckets full
+    private static final long FULL_RETRY_NANOS = 1_000_000_000L;
+
+    enum Group {
+        CHECKOUT, VALIDATE, SEARCH;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    @Value("${marketplace.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${marketplace.ratelimit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${marketplace.ratelimit.checkout.capacity:10}")
+    private int checkoutCapacity;
+
+    @Value("${marketplace.ratelimit.checkout.refill-per-second:2}")
+    private double checkoutRefill;
+
+    @Value("${marketplace.ratelimit.validate.capacity:20}")
+    private int validateCapacity;
+
+    @Value("${marketplace.ratelimit.validate.refill-per-second:5}")
+    private double validateRefill;
+
+    @Value("${marketplace.ratelimit.search.capacity:30}")
+    private int searchCapacity;
+
+    @Value("${marketplace.ratelimit.search.refill-per-second:10}")
+    private double searchRefill;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Group, TokenBuckets> byAddress = new EnumMap<>(Group.class);
+    private final Map<Group, TokenBuckets> byBuyer = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> allowed = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> rejected = new EnumMap<>(Group.class);
+    private byte[] rejectionBody;
+
+
+    // Tomcat also inspects filter instances for @PostConstruct and refuses checked exceptions
+    @PostConstruct
+    void init() {
+        for (Map<Group, TokenBuckets> buckets : List.of(byAddress, byBuyer)) {
+            buckets.put(Group.CHECKOUT, new TokenBuckets(checkoutCapacity, checkoutRefill, maxKeys));
+            buckets.put(Group.VALIDATE, new TokenBuckets(validateCapacity, validateRefill, maxKeys));
+            buckets.put(Group.SEARCH, new TokenBuckets(searchCapacity, searchRefill, maxKeys));
+        }
+        for (Group group : Group.values()) {
+            allowed.put(group, meterRegistry.counter("marketplace.ratelimit.decisions",
+                    "group", group.tag(), "result", "allowed"));
+            rejected.put(group, meterRegistry.counter("marketplace.ratelimit.decisions",
+                    "group", group.tag(), "result", "rejected"));
+            Gauge.builder("marketplace.ratelimit.keys", byAddress.get(group), TokenBuckets::size)
+                    .tags("group", group.tag(), "key", "address")
+                    .register(meterRegistry);
+            Gauge.builder("marketplace.ratelimit.keys", byBuyer.get(group), TokenBuckets::size)
+                    .tags("group", group.tag(), "key", "buyer")
+                    .register(meterRegistry);
+        }
+        try {
+            rejectionBody = objectMapper.writeValueAsBytes(
+                    Map.of("status", "error", "message", "Too many requests, please retry later"));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || groupOf(request) == null;
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Group group = groupOf(request);
+        HttpServletRequest forwarded = request;
+        String buyerId = request.getParameter("buyerId");
+        if (buyerId == null) {
+            buyerId = request.getHeader(BUYER_HEADER);
+        }
+        if (buyerId == null && group != Group.SEARCH && isSmallJson(request)) {
+            byte[] body = request.getInputStream().readAllBytes();
+            forwarded = new ReadBodyRequest(request, body);
+            buyerId = buyerIdIn(body);
+        }
+
+        long now = System.nanoTime();
+        long waitNanos = buyerId != null
+                ? byBuyer.get(group).tryAcquire(buyerId, now)
+                : byAddress.get(group).tryAcquire(request.getRemoteAddr(), now);
+        if (waitNanos == TokenBuckets.NO_ROOM) {
+            waitNanos = FULL_RETRY_NANOS;
+        }
+        if (waitNanos > 0) {
+            reject(group, response, waitNanos);
+            return;
+        }
+        allowed.get(group).increment();
+        chain.doFilter(forwarded, response);
+    }
+
+
+    private void reject(Group group, HttpServletResponse response, long waitNanos) throws IOException {
+        rejected.get(group).increment();
+        long retryAfter = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(rejectionBody.length);
+        response.getOutputStream().write(rejectionBody);
+    }
+
+
+    @Scheduled(fixedDelayString = "${marketplace.ratelimit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Group group : Group.values()) {
+            int evicted = byAddress.get(group).evictIdle(now) + byBuyer.get(group).evictIdle(now);
+            if (evicted > 0) {
+                log.debug("Evicted {} idle {} rate limit buckets", evicted, group.tag());
+            }
+        }
+    }
+
+
+    private static Group groupOf(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String method = request.getMethod();
+        if ("POST".equals(method)) {
+            if (uri.equals("/api/purchases") || uri.equals("/api/purchases/batch")) {
+                return Group.CHECKOUT;
+            }
+            if (uri.equals("/api/purchases/validate")) {
+                return Group.VALIDATE;
+            }
+        } else if ("GET".equals(method) && uri.startsWith("/api/") && uri.endsWith("/search")) {
+            return Group.SEARCH;
+        }
+        return null;
+    }
+
+
+    private static boolean isSmallJson(HttpServletRequest request) {
+        int length = request.getContentLength();
+        return length > 0 && length <= MAX_INSPECTED_BODY
+                && request.getContentType() != null && request.getContentType().contains("json");
+    }
+
+
+    // Top-level "buyerId" of a JSON object, or null; a batch body is an array and has none
+    private static String buyerIdIn(byte[] body) {
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("buyerId".equals(field) && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // Malformed JSON: key by address and let the controller report the error
+        }
+        return null;
+    }
+
+
+    // Replays a body this filter has already consumed
+    private static final class ReadBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        ReadBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory: available at once, then finished
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException | RuntimeException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
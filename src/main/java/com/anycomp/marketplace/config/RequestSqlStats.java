@@ -0,0 +1,114 @@
+package com.anycomp.marketplace.config;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQL activity of the current request (or of a {@link #measure} block), fed by the
+ * Hibernate hooks in {@link SqlStatsHibernateConfig}.
+ *
+ * Recording is per thread: work handed to another thread, such as a streamed export
+ * body, is not counted. Lazy collection loads are kept by association role
+ * ({@code com.anycomp.marketplace.entity.Seller.items}) so an N+1 can be traced to the
+ * mapping that caused it.
+ */
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long jdbcNanos;
+    private long entityLoads;
+    private final Map<String, Long> collectionLoads = new HashMap<>();
+    private final Map<String, Long> entityLoadsByType = new HashMap<>();
+
+    private RequestSqlStats() {
+    }
+
+
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+
+    static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+
+    /**
+     * Runs {@code work} on this thread and returns the SQL it caused, for tests that pin
+     * statement counts outside an HTTP request. Nests: an enclosing recording resumes
+     * afterwards, without the measured statements.
+     */
+    public static Snapshot measure(Runnable work) {
+        RequestSqlStats outer = CURRENT.get();
+        RequestSqlStats stats = begin();
+        try {
+            work.run();
+            return stats.snapshot();
+        } finally {
+            if (outer != null) {
+                CURRENT.set(outer);
+            } else {
+                end();
+            }
+        }
+    }
+
+
+    void statementPrepared() {
+        statements++;
+    }
+
+
+    void jdbcExecuted(long nanos) {
+        jdbcNanos += nanos;
+    }
+
+
+    void entityLoaded(String entityName) {
+        entityLoads++;
+        entityLoadsByType.merge(entityName, 1L, Long::sum);
+    }
+
+
+    void collectionLoaded(String role) {
+        collectionLoads.merge(role, 1L, Long::sum);
+    }
+
+
+    Snapshot snapshot() {
+        return new Snapshot(statements, jdbcNanos, entityLoads, worst(collectionLoads), worst(entityLoadsByType));
+    }
+
+
+    private static String worst(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .max(Comparator.comparingLong(Map.Entry::getValue))
+                .map(e -> e.getKey() + " x" + e.getValue())
+                .orElse(null);
+    }
+
+
+    /**
+     * Totals for one request or block. {@code hottestAssociation} is the lazy collection
+     * initialized most often ({@code role xN}), {@code hottestEntity} the entity type
+     * loaded most often; either is null when there were none.
+     */
+    public record Snapshot(long statements, long jdbcNanos, long entityLoads,
+                           String hottestAssociation, String hottestEntity) {
+
+        public double jdbcMillis() {
+            return jdbcNanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.anycomp.marketplace.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reports the SQL each API request ran: statement count, JDBC time and entity loads.
+ *
+ * The totals go out as {@code X-SQL-*} response headers and as meters tagged by endpoint.
+ * A request over the statement threshold is logged with the lazy association it
+ * initialized most, which is almost always the N+1. With
+ * {@code marketplace.sql.n-plus-one.fail=true} (for integration tests) such a request
+ * answers 500 instead, so a regression fails whatever test exercises it.
+ *
+ * Lazy loads mostly happen while the body is serialized, so the body is held back until the
+ * handler returns and the headers can carry the final numbers. Bodies larger than the buffer,
+ * and streamed (async) bodies, are passed through as they come and report what was counted
+ * up to that point.
+ */
+@Component
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String JDBC_TIME_HEADER = "X-SQL-Time-Ms";
+    public static final String ENTITY_LOADS_HEADER = "X-SQL-Entity-Loads";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    @Value("${marketplace.sql.stats.enabled:true}")
+    private boolean enabled;
+
+    @Value("${marketplace.sql.stats.buffer-bytes:262144}")
+    private int bufferBytes;
+
+    @Value("${marketplace.sql.n-plus-one.threshold:20}")
+    private int threshold;
+
+    @Value("${marketplace.sql.n-plus-one.fail:false}")
+    private boolean failOnThreshold;
+
+    // Endpoints (handler patterns) that run many statements by design
+    @Value("${marketplace.sql.n-plus-one.ignore:}")
+    private Set<String> ignored;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        HeldBackResponse held = new HeldBackResponse(response, bufferBytes,
+                () -> writeHeaders(response, stats.snapshot()));
+        try {
+            chain.doFilter(request, held);
+        } finally {
+            RequestSqlStats.end();
+        }
+
+        RequestSqlStats.Snapshot snapshot = stats.snapshot();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        record(request.getMethod(), uri, snapshot);
+
+        if (snapshot.statements() > threshold && !ignored.contains(uri)) {
+            log.warn("Possible N+1 on {} {}: {} SQL statements, {} ms JDBC, {} entity loads; "
+                            + "most initialized association: {}; most loaded entity: {}",
+                    request.getMethod(), uri, snapshot.statements(), String.format("%.1f", snapshot.jdbcMillis()),
+                    snapshot.entityLoads(), snapshot.hottestAssociation(), snapshot.hottestEntity());
+            meterRegistry.counter("marketplace.request.sql.threshold.exceeded", "method", request.getMethod(), "uri", uri)
+                    .increment();
+            if (failOnThreshold && !held.isReleased() && !request.isAsyncStarted()) {
+                held.reset();
+                held.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+                held.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("status", "error");
+                error.put("message", "SQL statement threshold exceeded: " + snapshot.statements() + " > " + threshold);
+                error.put("association", snapshot.hottestAssociation());
+                error.put("entity", snapshot.hottestEntity());
+                held.getOutputStream().write(objectMapper.writeValueAsBytes(error));
+            }
+        }
+        held.release();
+    }
+
+
+    private void record(String method, String uri, RequestSqlStats.Snapshot snapshot) {
+        Tags tags = Tags.of("method", method, "uri", uri);
+        DistributionSummary.builder("marketplace.request.sql.statements").tags(tags).register(meterRegistry)
+                .record(snapshot.statements());
+        DistributionSummary.builder("marketplace.request.sql.entity.loads").tags(tags).register(meterRegistry)
+                .record(snapshot.entityLoads());
+        Timer.builder("marketplace.request.sql.time").tags(tags).register(meterRegistry)
+                .record(snapshot.jdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+
+    private static void writeHeaders(HttpServletResponse response, RequestSqlStats.Snapshot snapshot) {
+        response.setHeader(STATEMENTS_HEADER, Long.toString(snapshot.statements()));
+        response.setHeader(JDBC_TIME_HEADER, String.format("%.3f", snapshot.jdbcMillis()));
+        response.setHeader(ENTITY_LOADS_HEADER, Long.toString(snapshot.entityLoads()));
+    }
+
+
+    // Buffers the body until release(), or until it outgrows the limit, so headers can still be set.
+    // Guarded by a lock rather than a monitor: an async body may write from another thread, and
+    // writes block on the socket once released.
+    private static final class HeldBackResponse extends HttpServletResponseWrapper {
+
+        private final int limit;
+        private final Runnable beforeCommit;
+        private final Lock lock = new ReentrantLock();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private boolean released;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        HeldBackResponse(HttpServletResponse response, int limit, Runnable beforeCommit) {
+            super(response);
+            this.limit = limit;
+            this.beforeCommit = beforeCommit;
+        }
+
+        boolean isReleased() {
+            lock.lock();
+            try {
+                return released;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release() throws IOException {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                if (!super.isCommitted()) {
+                    beforeCommit.run();
+                }
+                if (buffer.size() > 0) {
+                    buffer.writeTo(super.getOutputStream());
+                    buffer.reset();
+                }
+                // Characters still inside the writer pass straight through now
+                if (writer != null) {
+                    writer.flush();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new HeldBackStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            lock.lock();
+            try {
+                if (released) {
+                    super.flushBuffer();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            lock.lock();
+            try {
+                buffer.reset();
+                super.resetBuffer();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void reset() {
+            lock.lock();
+            try {
+                buffer.reset();
+                writer = null;
+                super.reset();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private final class HeldBackStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                lock.lock();
+                try {
+                    if (released) {
+                        HeldBackResponse.super.getOutputStream().write(b);
+                    } else {
+                        buffer.write(b);
+                        releaseIfFull();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                lock.lock();
+                try {
+                    if (released) {
+                        HeldBackResponse.super.getOutputStream().write(b, off, len);
+                    } else {
+                        buffer.write(b, off, len);
+                        releaseIfFull();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                lock.lock();
+                try {
+                    if (released) {
+                        HeldBackResponse.super.getOutputStream().flush();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                try {
+                    HeldBackResponse.super.getOutputStream().setWriteListener(listener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            private void releaseIfFull() throws IOException {
+                if (buffer.size() > limit) {
+                    release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.anycomp.marketplace.config;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// Hooks Hibernate into RequestSqlStats: prepared statements through a StatementInspector,
+// JDBC execution time through a per-session event listener, and entity and lazy
+// collection loads through event listeners. Each hook is a no-op when nothing is recording.
+@Configuration
+public class SqlStatsHibernateConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatsHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                RequestSqlStats stats = RequestSqlStats.current();
+                if (stats != null) {
+                    stats.statementPrepared();
+                }
+                return sql;
+            });
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingListener.class.getName());
+            properties.put(JpaSettings.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(new LoadListenerIntegrator()));
+        };
+    }
+
+
+    // Instantiated by Hibernate once per session
+    public static class JdbcTimingListener extends BaseSessionEventListener {
+
+        private long startedAt;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            startedAt = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            record();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            startedAt = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            record();
+        }
+
+        private void record() {
+            RequestSqlStats stats = RequestSqlStats.current();
+            if (stats != null && startedAt != 0) {
+                stats.jdbcExecuted(System.nanoTime() - startedAt);
+            }
+            startedAt = 0;
+        }
+    }
+
+
+    private static class LoadListenerIntegrator implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) (PostLoadEvent event) -> {
+                RequestSqlStats stats = RequestSqlStats.current();
+                if (stats != null) {
+                    stats.entityLoaded(event.getPersister().getEntityName());
+                }
+            });
+            registry.appendListeners(EventType.INIT_COLLECTION,
+                    (InitializeCollectionEventListener) (InitializeCollectionEvent event) -> {
+                        RequestSqlStats stats = RequestSqlStats.current();
+                        if (stats != null) {
+                            stats.collectionLoaded(event.getCollection().getRole());
+                        }
+                    });
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                 SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
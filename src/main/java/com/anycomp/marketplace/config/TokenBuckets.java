@@ -0,0 +1,74 @@
+package com.anycomp.marketplace.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets, one per key, all with the same capacity and refill rate.
+ *
+ * Each bucket is a single {@code AtomicLong} holding the time at which it will be full again
+ * (the GCRA form of a token bucket): a request is admitted if that time is no more than
+ * {@code capacity - 1} refill intervals ahead of now, and moves it one interval further.
+ * Admission is one CAS with no timer or refill thread. A bucket whose full-again time has
+ * passed is indistinguishable from a new one, which is what makes idle keys free to evict.
+ * The map never grows past {@code maxKeys}: a new key arriving at a full map is refused
+ * until the next sweep makes room.
+ */
+final class TokenBuckets {
+
+    static final long NO_ROOM = -1;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    TokenBuckets(int capacity, double refillPerSecond, int maxKeys) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit needs capacity >= 1 and a positive refill rate");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstNanos = (capacity - 1) * intervalNanos;
+        this.maxKeys = maxKeys;
+    }
+
+
+    // 0 when a token was taken, NO_ROOM when the key is new and the map is full, otherwise
+    // the nanoseconds until a token is available
+    long tryAcquire(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            // Concurrent first requests may overshoot maxKeys by a few entries; the sweep catches up
+            if (buckets.size() >= maxKeys) {
+                return NO_ROOM;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, now);
+            long wait = start - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+
+    // Drops buckets that have refilled completely; called from the scheduled sweep, never on
+    // the request path. A request racing with the removal may get one token more than its
+    // share, never fewer.
+    int evictIdle(long now) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+
+    int size() {
+        return buckets.size();
+    }
+}
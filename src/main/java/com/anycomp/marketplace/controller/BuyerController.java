@@ -1,5 +1,7 @@
 package com.anycomp.marketplace.controller;
 
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.BuyerSummary;
 import com.anycomp.marketplace.entity.Buyer;
 import com.anycomp.marketplace.service.BuyerService;
 import com.anycomp.marketplace.service.PurchaseService;
@@ -28,7 +30,7 @@ public class BuyerController {
     
     // GET /buyers - List all buyers
     @GetMapping
-    public ResponseEntity<Page<Buyer>> getAllBuyers(
+    public ResponseEntity<Page<BuyerSummary>> getAllBuyers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
@@ -39,15 +41,26 @@ public class BuyerController {
                    Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Buyer> buyers = buyerService.getAllBuyers(pageable);
+        Page<BuyerSummary> buyers = buyerService.getAllBuyers(pageable);
+        
+        return ResponseEntity.ok(buyers);
+    }
+    
+    // GET /buyers/scroll - List buyers with keyset pagination
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<BuyerSummary>> scrollBuyers(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<BuyerSummary> buyers = buyerService.getAllBuyersAfter(after, size);
         
         return ResponseEntity.ok(buyers);
     }
     
     // GET /buyers/{id} - Get a specific buyer
     @GetMapping("/{id}")
-    public ResponseEntity<Buyer> getBuyerById(@PathVariable Long id) {
-        Optional<Buyer> buyer = buyerService.getBuyerById(id);
+    public ResponseEntity<BuyerSummary> getBuyerById(@PathVariable Long id) {
+        Optional<BuyerSummary> buyer = buyerService.getBuyerById(id);
         
         if (buyer.isPresent()) {
             return ResponseEntity.ok(buyer.get());
@@ -92,13 +105,13 @@ public class BuyerController {
     
     // GET /buyers/search - Search buyers by name
     @GetMapping("/search")
-    public ResponseEntity<Page<Buyer>> searchBuyers(
+    public ResponseEntity<Page<BuyerSummary>> searchBuyers(
             @RequestParam String name,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Buyer> buyers = buyerService.searchBuyersByName(name, pageable);
+        Page<BuyerSummary> buyers = buyerService.searchBuyersByName(name, pageable);
         
         return ResponseEntity.ok(buyers);
     }
@@ -118,6 +131,20 @@ public class BuyerController {
         return ResponseEntity.ok(purchaseService.getPurchasesByBuyerId(id, pageable));
     }
     
+    // GET /buyers/{id}/purchases/scroll - Get purchases for a buyer with keyset pagination
+    @GetMapping("/{id}/purchases/scroll")
+    public ResponseEntity<?> scrollBuyerPurchases(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        if (!buyerService.buyerExists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(purchaseService.getPurchasesByBuyerIdAfter(id, after, size));
+    }
+    
     // GET /buyers/{id}/spending - Get total spending for a buyer
     @GetMapping("/{id}/spending")
     public ResponseEntity<?> getBuyerTotalSpending(@PathVariable Long id) {
@@ -131,12 +158,12 @@ public class BuyerController {
     
     // GET /buyers/with-purchases - Get buyers who have made purchases
     @GetMapping("/with-purchases")
-    public ResponseEntity<Page<Buyer>> getBuyersWithPurchases(
+    public ResponseEntity<Page<BuyerSummary>> getBuyersWithPurchases(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Buyer> buyers = buyerService.getBuyersWithPurchases(pageable);
+        Page<BuyerSummary> buyers = buyerService.getBuyersWithPurchases(pageable);
         
         return ResponseEntity.ok(buyers);
     }
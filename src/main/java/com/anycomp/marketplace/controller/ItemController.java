@@ -1,5 +1,8 @@
 package com.anycomp.marketplace.controller;
 
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.ItemFilter;
+import com.anycomp.marketplace.dto.ItemSummary;
 import com.anycomp.marketplace.entity.Item;
 import com.anycomp.marketplace.service.ItemService;
 import jakarta.validation.Valid;
@@ -34,32 +37,71 @@ public ResponseEntity<Item> createItem(@Valid @RequestBody Item item, @RequestPa
 
 // Get all items with pagination
 @GetMapping
-public ResponseEntity<Page<Item>> getAllItems(
+public ResponseEntity<Page<ItemSummary>> getAllItems(
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.getAllItems(pageable);
+    Page<ItemSummary> items = itemService.getAllItems(pageable);
+    return new ResponseEntity<>(items, HttpStatus.OK);
+}
+
+// Get items with keyset pagination
+@GetMapping("/scroll")
+public ResponseEntity<CursorPage<ItemSummary>> scrollItems(
+        @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "10") int size) {
+    
+    CursorPage<ItemSummary> items = itemService.getItemsAfter(after, size);
+    return new ResponseEntity<>(items, HttpStatus.OK);
+}
+
+// Filter items by any combination of seller, stock, price range and quantity cap,
+// ordered by id or price, with keyset pagination
+@GetMapping("/filter")
+public ResponseEntity<CursorPage<ItemSummary>> filterItems(
+        @RequestParam(required = false) Long sellerId,
+        @RequestParam(required = false) Boolean inStock,
+        @RequestParam(required = false) Double minPrice,
+        @RequestParam(required = false) Double maxPrice,
+        @RequestParam(required = false) Integer maxQuantity,
+        @RequestParam(defaultValue = "ID") ItemFilter.Sort sort,
+        @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "10") int size) {
+    
+    ItemFilter filter = new ItemFilter(sellerId, inStock, minPrice, maxPrice, maxQuantity, sort);
+    CursorPage<ItemSummary> items = itemService.filterItems(filter, after, size);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
 // Get item by ID
 @GetMapping("/{id}")
-public ResponseEntity<Item> getItemById(@PathVariable Long id) {
-    Optional<Item> item = itemService.getItemById(id);
+public ResponseEntity<ItemSummary> getItemById(@PathVariable Long id) {
+    Optional<ItemSummary> item = itemService.getItemById(id);
     return item.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
               .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
 }
 
 // Get items by seller ID
 @GetMapping("/seller/{sellerId}")
-public ResponseEntity<Page<Item>> getItemsBySellerId(
+public ResponseEntity<Page<ItemSummary>> getItemsBySellerId(
         @PathVariable Long sellerId,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.getItemsBySellerId(sellerId, pageable);
+    Page<ItemSummary> items = itemService.getItemsBySellerId(sellerId, pageable);
+    return new ResponseEntity<>(items, HttpStatus.OK);
+}
+
+// Get items by seller ID with keyset pagination
+@GetMapping("/seller/{sellerId}/scroll")
+public ResponseEntity<CursorPage<ItemSummary>> scrollItemsBySellerId(
+        @PathVariable Long sellerId,
+        @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "10") int size) {
+    
+    CursorPage<ItemSummary> items = itemService.getItemsBySellerIdAfter(sellerId, after, size);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
@@ -89,85 +131,88 @@ public ResponseEntity<Map<String, String>> deleteItem(@PathVariable Long id) {
     }
 }
 
-// Search items by name
+// Search items by name. No keyset variant: matches come from the search index as an id
+// list and a page is a slice of it, so a deep page costs no OFFSET scan.
 @GetMapping("/search")
-public ResponseEntity<Page<Item>> searchItemsByName(
+public ResponseEntity<Page<ItemSummary>> searchItemsByName(
         @RequestParam String name,
+        @RequestParam(defaultValue = "false") boolean includeDescription,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.searchItemsByName(name, pageable);
+    Page<ItemSummary> items = itemService.searchItems(name, includeDescription, pageable);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
 // Get items by price range
 @GetMapping("/price-range")
-public ResponseEntity<Page<Item>> getItemsByPriceRange(
+public ResponseEntity<Page<ItemSummary>> getItemsByPriceRange(
         @RequestParam Double minPrice,
         @RequestParam Double maxPrice,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.getItemsByPriceRange(minPrice, maxPrice, pageable);
+    Page<ItemSummary> items = itemService.getItemsByPriceRange(minPrice, maxPrice, pageable);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
 // Get available items
 @GetMapping("/available")
-public ResponseEntity<Page<Item>> getAvailableItems(
+public ResponseEntity<Page<ItemSummary>> getAvailableItems(
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.getAvailableItems(pageable);
+    Page<ItemSummary> items = itemService.getAvailableItems(pageable);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
 // Get low stock items
 @GetMapping("/low-stock")
-public ResponseEntity<Page<Item>> getLowStockItems(
+public ResponseEntity<Page<ItemSummary>> getLowStockItems(
         @RequestParam Integer threshold,
+        @RequestParam(required = false) Long sellerId,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.getLowStockItems(threshold, pageable);
+    Page<ItemSummary> items = itemService.getLowStockItems(threshold, sellerId, pageable);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
 // Get available items by seller
 @GetMapping("/seller/{sellerId}/available")
-public ResponseEntity<Page<Item>> getAvailableItemsBySellerId(
+public ResponseEntity<Page<ItemSummary>> getAvailableItemsBySellerId(
         @PathVariable Long sellerId,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.getAvailableItemsBySellerId(sellerId, pageable);
+    Page<ItemSummary> items = itemService.getAvailableItemsBySellerId(sellerId, pageable);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
 // Get items ordered by price (ascending)
 @GetMapping("/price/asc")
-public ResponseEntity<Page<Item>> getItemsByPriceAsc(
+public ResponseEntity<Page<ItemSummary>> getItemsByPriceAsc(
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.getItemsByPriceAsc(pageable);
+    Page<ItemSummary> items = itemService.getItemsByPriceAsc(pageable);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
 // Get items ordered by price (descending)
 @GetMapping("/price/desc")
-public ResponseEntity<Page<Item>> getItemsByPriceDesc(
+public ResponseEntity<Page<ItemSummary>> getItemsByPriceDesc(
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
     
     Pageable pageable = PageRequest.of(page, size);
-    Page<Item> items = itemService.getItemsByPriceDesc(pageable);
+    Page<ItemSummary> items = itemService.getItemsByPriceDesc(pageable);
     return new ResponseEntity<>(items, HttpStatus.OK);
 }
 
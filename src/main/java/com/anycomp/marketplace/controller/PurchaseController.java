@@ -1,6 +1,14 @@
 package com.anycomp.marketplace.controller;
 
+import com.anycomp.marketplace.dto.BestSeller;
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.PurchaseSummary;
+import com.anycomp.marketplace.dto.SalesBucket;
 import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.RollupGranularity;
+import com.anycomp.marketplace.service.DataFormat;
+import com.anycomp.marketplace.service.IdempotentRequests;
+import com.anycomp.marketplace.service.PurchaseExporter;
 import com.anycomp.marketplace.service.PurchaseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -8,14 +16,18 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,9 +38,19 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class PurchaseController {
     
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    
     @Autowired
     private PurchaseService purchaseService;
     
+    @Autowired
+    private PurchaseExporter purchaseExporter;
+    
+    @Autowired
+    private IdempotentRequests idempotentRequests;
+    
     // DTO for purchase request
     public static class PurchaseRequest {
         @NotNull(message = "Buyer ID is required")
@@ -61,9 +83,22 @@ public class PurchaseController {
         public void setQuantity(Integer quantity) { this.quantity = quantity; }
     }
     
-    // Create a new purchase
+    // Create a new purchase; with an Idempotency-Key, retries replay the first response instead of buying again.
+    // Keys are per buyer.
     @PostMapping
-    public ResponseEntity<?> createPurchase(@Valid @RequestBody PurchaseRequest request) {
+    public ResponseEntity<?> createPurchase(
+            @Valid @RequestBody PurchaseRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) 
+            throws InterruptedException {
+        if (idempotencyKey == null) {
+            return buy(request);
+        }
+        String fingerprint = request.getBuyerId() + ":" + request.getItemId() + ":" + request.getQuantity();
+        return idempotentRequests.execute("buyer:" + request.getBuyerId(), idempotencyKey, fingerprint,
+                () -> buy(request));
+    }
+    
+    private ResponseEntity<?> buy(PurchaseRequest request) {
         try {
             Purchase purchase = purchaseService.buyItem(
                 request.getBuyerId(), 
@@ -86,9 +121,42 @@ public class PurchaseController {
         }
     }
     
+    // Create many purchases in one transaction
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> createPurchases(@RequestBody List<PurchaseRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Batch must contain between 1 and " + MAX_BATCH_SIZE + " purchases");
+            
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        
+        List<PurchaseService.PurchaseLine> lines = new ArrayList<>(requests.size());
+        for (PurchaseRequest request : requests) {
+            lines.add(new PurchaseService.PurchaseLine(
+                request.getBuyerId(), 
+                request.getItemId(), 
+                request.getQuantity()
+            ));
+        }
+        
+        List<PurchaseService.PurchaseLineResult> results = purchaseService.buyItems(lines);
+        long succeeded = results.stream().filter(PurchaseService.PurchaseLineResult::isSuccess).count();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", succeeded == results.size());
+        response.put("total", results.size());
+        response.put("succeeded", succeeded);
+        response.put("failed", results.size() - succeeded);
+        response.put("results", results);
+        
+        return ResponseEntity.ok(response);
+    }
+    
     // Get all purchases with pagination
     @GetMapping
-    public ResponseEntity<Page<Purchase>> getAllPurchases(
+    public ResponseEntity<Page<PurchaseSummary>> getAllPurchases(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "purchaseDate") String sortBy,
@@ -98,7 +166,18 @@ public class PurchaseController {
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Purchase> purchases = purchaseService.getAllPurchases(pageable);
+        Page<PurchaseSummary> purchases = purchaseService.getAllPurchases(pageable);
+        
+        return ResponseEntity.ok(purchases);
+    }
+    
+    // Get purchases with keyset pagination (newest first)
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<PurchaseSummary>> scrollPurchases(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<PurchaseSummary> purchases = purchaseService.getPurchasesAfter(after, size);
         
         return ResponseEntity.ok(purchases);
     }
@@ -121,7 +200,7 @@ public class PurchaseController {
     
     // Get purchases by buyer ID
     @GetMapping("/buyer/{buyerId}")
-    public ResponseEntity<Page<Purchase>> getPurchasesByBuyer(
+    public ResponseEntity<Page<PurchaseSummary>> getPurchasesByBuyer(
             @PathVariable Long buyerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -132,14 +211,26 @@ public class PurchaseController {
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Purchase> purchases = purchaseService.getPurchasesByBuyerId(buyerId, pageable);
+        Page<PurchaseSummary> purchases = purchaseService.getPurchasesByBuyerId(buyerId, pageable);
+        
+        return ResponseEntity.ok(purchases);
+    }
+    
+    // Get purchases by buyer ID with keyset pagination (newest first)
+    @GetMapping("/buyer/{buyerId}/scroll")
+    public ResponseEntity<CursorPage<PurchaseSummary>> scrollPurchasesByBuyer(
+            @PathVariable Long buyerId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<PurchaseSummary> purchases = purchaseService.getPurchasesByBuyerIdAfter(buyerId, after, size);
         
         return ResponseEntity.ok(purchases);
     }
     
     // Get purchases by item ID
     @GetMapping("/item/{itemId}")
-    public ResponseEntity<Page<Purchase>> getPurchasesByItem(
+    public ResponseEntity<Page<PurchaseSummary>> getPurchasesByItem(
             @PathVariable Long itemId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -150,14 +241,26 @@ public class PurchaseController {
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Purchase> purchases = purchaseService.getPurchasesByItemId(itemId, pageable);
+        Page<PurchaseSummary> purchases = purchaseService.getPurchasesByItemId(itemId, pageable);
+        
+        return ResponseEntity.ok(purchases);
+    }
+    
+    // Get purchases by item ID with keyset pagination (newest first)
+    @GetMapping("/item/{itemId}/scroll")
+    public ResponseEntity<CursorPage<PurchaseSummary>> scrollPurchasesByItem(
+            @PathVariable Long itemId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<PurchaseSummary> purchases = purchaseService.getPurchasesByItemIdAfter(itemId, after, size);
         
         return ResponseEntity.ok(purchases);
     }
     
     // Get purchases by seller ID
     @GetMapping("/seller/{sellerId}")
-    public ResponseEntity<Page<Purchase>> getPurchasesBySeller(
+    public ResponseEntity<Page<PurchaseSummary>> getPurchasesBySeller(
             @PathVariable Long sellerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -168,14 +271,26 @@ public class PurchaseController {
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Purchase> purchases = purchaseService.getPurchasesBySellerId(sellerId, pageable);
+        Page<PurchaseSummary> purchases = purchaseService.getPurchasesBySellerId(sellerId, pageable);
+        
+        return ResponseEntity.ok(purchases);
+    }
+    
+    // Get purchases by seller ID with keyset pagination (newest first)
+    @GetMapping("/seller/{sellerId}/scroll")
+    public ResponseEntity<CursorPage<PurchaseSummary>> scrollPurchasesBySeller(
+            @PathVariable Long sellerId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<PurchaseSummary> purchases = purchaseService.getPurchasesBySellerIdAfter(sellerId, after, size);
         
         return ResponseEntity.ok(purchases);
     }
     
     // Get purchases by date range
     @GetMapping("/date-range")
-    public ResponseEntity<Page<Purchase>> getPurchasesByDateRange(
+    public ResponseEntity<Page<PurchaseSummary>> getPurchasesByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @RequestParam(defaultValue = "0") int page,
@@ -187,14 +302,27 @@ public class PurchaseController {
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Purchase> purchases = purchaseService.getPurchasesByDateRange(startDate, endDate, pageable);
+        Page<PurchaseSummary> purchases = purchaseService.getPurchasesByDateRange(startDate, endDate, pageable);
+        
+        return ResponseEntity.ok(purchases);
+    }
+    
+    // Get purchases by date range with keyset pagination (newest first)
+    @GetMapping("/date-range/scroll")
+    public ResponseEntity<CursorPage<PurchaseSummary>> scrollPurchasesByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<PurchaseSummary> purchases = purchaseService.getPurchasesByDateRangeAfter(startDate, endDate, after, size);
         
         return ResponseEntity.ok(purchases);
     }
     
     // Get recent purchases
     @GetMapping("/recent")
-    public ResponseEntity<Page<Purchase>> getRecentPurchases(
+    public ResponseEntity<Page<PurchaseSummary>> getRecentPurchases(
             @RequestParam(defaultValue = "7") int days,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -205,7 +333,19 @@ public class PurchaseController {
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Purchase> purchases = purchaseService.getRecentPurchases(days, pageable);
+        Page<PurchaseSummary> purchases = purchaseService.getRecentPurchases(days, pageable);
+        
+        return ResponseEntity.ok(purchases);
+    }
+    
+    // Get recent purchases with keyset pagination (newest first)
+    @GetMapping("/recent/scroll")
+    public ResponseEntity<CursorPage<PurchaseSummary>> scrollRecentPurchases(
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<PurchaseSummary> purchases = purchaseService.getRecentPurchasesAfter(days, after, size);
         
         return ResponseEntity.ok(purchases);
     }
@@ -276,15 +416,80 @@ public class PurchaseController {
     
     // Get most purchased items
     @GetMapping("/stats/most-purchased")
-    public ResponseEntity<Map<String, Object>> getMostPurchasedItems() {
-        List<Object[]> items = purchaseService.getMostPurchasedItems();
+    public ResponseEntity<Map<String, Object>> getMostPurchasedItems(
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        int clamped = Math.max(1, Math.min(limit, MAX_LEADERBOARD_SIZE));
+        List<BestSeller> items = purchaseService.getMostPurchasedItems(clamped);
         
         Map<String, Object> response = new HashMap<>();
         response.put("mostPurchasedItems", items);
+        response.put("limit", clamped);
         
         return ResponseEntity.ok(response);
     }
     
+    // Stream purchase history as NDJSON or CSV without paging; 429 while too many exports are running
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPurchases(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long sellerId) {
+        
+        DataFormat exportFormat = DataFormat.parse(format);
+        PurchaseExporter.Slot slot = purchaseExporter.tryReserve();
+        if (slot == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        StreamingResponseBody body = out -> {
+            try (slot) {
+                purchaseExporter.export(exportFormat, from, to, sellerId, out);
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, 
+                        "attachment; filename=\"purchases." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
+    // Sales time series (sparse hourly or daily buckets) over [from, to)
+    @GetMapping("/stats/series")
+    public ResponseEntity<List<SalesBucket>> getSalesSeries(
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        return ResponseEntity.ok(purchaseService.getSalesSeries(
+                RollupGranularity.parse(granularity), from, to, null, null));
+    }
+    
+    // Sales time series for one item
+    @GetMapping("/stats/series/item/{itemId}")
+    public ResponseEntity<List<SalesBucket>> getItemSalesSeries(
+            @PathVariable Long itemId,
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        return ResponseEntity.ok(purchaseService.getSalesSeries(
+                RollupGranularity.parse(granularity), from, to, itemId, null));
+    }
+    
+    // Sales time series for one seller
+    @GetMapping("/stats/series/seller/{sellerId}")
+    public ResponseEntity<List<SalesBucket>> getSellerSalesSeries(
+            @PathVariable Long sellerId,
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        return ResponseEntity.ok(purchaseService.getSalesSeries(
+                RollupGranularity.parse(granularity), from, to, null, sellerId));
+    }
+    
     // Get total purchases count
     @GetMapping("/stats/count")
     public ResponseEntity<Map<String, Object>> getTotalPurchasesCount() {
@@ -1,8 +1,14 @@
 package com.anycomp.marketplace.controller;
 
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.ItemImportReport;
+import com.anycomp.marketplace.dto.SellerSummary;
 import com.anycomp.marketplace.entity.Seller;
 import com.anycomp.marketplace.service.SellerService;
+import com.anycomp.marketplace.service.DataFormat;
+import com.anycomp.marketplace.service.ItemImporter;
 import com.anycomp.marketplace.service.ItemService;
+import com.anycomp.marketplace.service.LowStockFeed;
 import com.anycomp.marketplace.service.PurchaseService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,9 +17,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
 import java.util.Optional;
 
 @RestController
@@ -21,18 +33,26 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class SellerController {
     
+    private static final int MAX_FEED_SNAPSHOT = 1000;
+    
     @Autowired
     private SellerService sellerService;
     
     @Autowired
     private ItemService itemService;
     
+    @Autowired
+    private LowStockFeed lowStockFeed;
+    
     @Autowired
     private PurchaseService purchaseService;
     
+    @Autowired
+    private ItemImporter itemImporter;
+    
     // GET /sellers - List all sellers
     @GetMapping
-    public ResponseEntity<Page<Seller>> getAllSellers(
+    public ResponseEntity<Page<SellerSummary>> getAllSellers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
@@ -43,15 +63,26 @@ public class SellerController {
                    Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Seller> sellers = sellerService.getAllSellers(pageable);
+        Page<SellerSummary> sellers = sellerService.getAllSellers(pageable);
+        
+        return ResponseEntity.ok(sellers);
+    }
+    
+    // GET /sellers/scroll - List sellers with keyset pagination
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<SellerSummary>> scrollSellers(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<SellerSummary> sellers = sellerService.getAllSellersAfter(after, size);
         
         return ResponseEntity.ok(sellers);
     }
     
     // GET /sellers/{id} - Get a specific seller
     @GetMapping("/{id}")
-    public ResponseEntity<Seller> getSellerById(@PathVariable Long id) {
-        Optional<Seller> seller = sellerService.getSellerById(id);
+    public ResponseEntity<SellerSummary> getSellerById(@PathVariable Long id) {
+        Optional<SellerSummary> seller = sellerService.getSellerById(id);
         
         if (seller.isPresent()) {
             return ResponseEntity.ok(seller.get());
@@ -96,13 +127,13 @@ public class SellerController {
     
     // GET /sellers/search - Search sellers by name
     @GetMapping("/search")
-    public ResponseEntity<Page<Seller>> searchSellers(
+    public ResponseEntity<Page<SellerSummary>> searchSellers(
             @RequestParam String name,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Seller> sellers = sellerService.searchSellersByName(name, pageable);
+        Page<SellerSummary> sellers = sellerService.searchSellersByName(name, pageable);
         
         return ResponseEntity.ok(sellers);
     }
@@ -153,6 +184,45 @@ public class SellerController {
         }
     }
     
+    // POST /sellers/{sellerId}/items/import - Bulk import a CSV or NDJSON catalog
+    @PostMapping(value = "/{sellerId}/items/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importItems(
+            @PathVariable Long sellerId,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) throws IOException {
+        
+        if (!sellerService.sellerExists(sellerId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        DataFormat importFormat = format != null ? DataFormat.parse(format) 
+                : (file.getOriginalFilename() != null && file.getOriginalFilename().toLowerCase(Locale.ROOT).endsWith(".csv") 
+                        ? DataFormat.CSV : DataFormat.NDJSON);
+        
+        try (InputStream input = file.getInputStream()) {
+            ItemImportReport report = itemImporter.importItems(sellerId, importFormat, input);
+            return ResponseEntity.ok(report);
+        }
+    }
+    
+    // GET /sellers/{sellerId}/low-stock/feed - Server-sent alerts when an item crosses the threshold
+    @GetMapping(value = "/{sellerId}/low-stock/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> lowStockFeed(
+            @PathVariable Long sellerId,
+            @RequestParam Integer threshold) {
+        
+        if (!sellerService.sellerExists(sellerId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        SseEmitter feed = lowStockFeed.subscribe(sellerId, threshold, () -> itemService
+                .getLowStockItems(threshold, sellerId, PageRequest.of(0, MAX_FEED_SNAPSHOT)).getContent());
+        if (feed == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.ok(feed);
+    }
+    
     // GET /sellers/{id}/revenue - Get total revenue for a seller
     @GetMapping("/{id}/revenue")
     public ResponseEntity<?> getSellerTotalRevenue(@PathVariable Long id) {
@@ -179,26 +249,40 @@ public class SellerController {
         return ResponseEntity.ok(purchaseService.getPurchasesBySellerId(id, pageable));
     }
     
+    // GET /sellers/{id}/sales/scroll - Get sales for a seller with keyset pagination
+    @GetMapping("/{id}/sales/scroll")
+    public ResponseEntity<?> scrollSellerSales(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        if (!sellerService.sellerExists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(purchaseService.getPurchasesBySellerIdAfter(id, after, size));
+    }
+    
     // GET /sellers/with-items - Get sellers who have items
     @GetMapping("/with-items")
-    public ResponseEntity<Page<Seller>> getSellersWithItems(
+    public ResponseEntity<Page<SellerSummary>> getSellersWithItems(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Seller> sellers = sellerService.getSellersWithItems(pageable);
+        Page<SellerSummary> sellers = sellerService.getSellersWithItems(pageable);
         
         return ResponseEntity.ok(sellers);
     }
     
     // GET /sellers/with-sales - Get sellers who have made sales
     @GetMapping("/with-sales")
-    public ResponseEntity<Page<Seller>> getSellersWithSales(
+    public ResponseEntity<Page<SellerSummary>> getSellersWithSales(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Seller> sellers = sellerService.getSellersWithSales(pageable);
+        Page<SellerSummary> sellers = sellerService.getSellersWithSales(pageable);
         
         return ResponseEntity.ok(sellers);
     }
@@ -0,0 +1,5 @@
+package com.anycomp.marketplace.dto;
+
+// One leaderboard row: an item and the quantity sold across all purchases
+public record BestSeller(Long itemId, String itemName, Long totalQuantity) {
+}
@@ -0,0 +1,5 @@
+package com.anycomp.marketplace.dto;
+
+// Buyer as returned by list and lookup endpoints, without the purchases collection
+public record BuyerSummary(Long id, String name, String email) {
+}
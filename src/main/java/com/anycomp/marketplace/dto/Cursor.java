@@ -0,0 +1,47 @@
+package com.anycomp.marketplace.dto;
+
+import com.anycomp.marketplace.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset cursor: the sort key and id of the last row of the previous page
+public final class Cursor {
+    
+    private static final char SEPARATOR = '|';
+    
+    private final String key;
+    private final Long id;
+    
+    private Cursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+    
+    public static String encode(Long id) {
+        return encode("", id);
+    }
+    
+    public static String encode(Object key, Long id) {
+        String raw = key + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // Returns null for a missing cursor (first page)
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            return new Cursor(raw.substring(0, split), Long.valueOf(raw.substring(split + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Invalid cursor: " + cursor);
+        }
+    }
+    
+    public String getKey() { return key; }
+    
+    public Long getId() { return id; }
+}
@@ -0,0 +1,55 @@
+package com.anycomp.marketplace.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Slice-style page for keyset pagination: no total count, just a cursor to the next page
+public class CursorPage<T> {
+    
+    public static final int MAX_SIZE = 100;
+    
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+    
+    private CursorPage(List<T> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+    
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+    
+    // Fetch one row more than requested so hasNext needs no count query
+    public static Pageable fetchLimit(int size) {
+        return PageRequest.of(0, clampSize(size) + 1);
+    }
+    
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        int pageSize = clampSize(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<T> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, content.size(), hasNext, nextCursor);
+    }
+    
+    // A page cut by the caller, for content that may come up short of the rows it was cut at
+    public static <T> CursorPage<T> of(List<T> content, boolean hasNext, String nextCursor) {
+        return new CursorPage<>(content, content.size(), hasNext, hasNext ? nextCursor : null);
+    }
+    
+    public List<T> getContent() { return content; }
+    
+    public int getSize() { return size; }
+    
+    public boolean isHasNext() { return hasNext; }
+    
+    public String getNextCursor() { return nextCursor; }
+}
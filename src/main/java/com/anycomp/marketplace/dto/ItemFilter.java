@@ -0,0 +1,23 @@
+package com.anycomp.marketplace.dto;
+
+import com.anycomp.marketplace.exception.InvalidRequestException;
+
+// Combined item query: every criterion is optional, and all given criteria must match
+public record ItemFilter(Long sellerId, Boolean inStock, Double minPrice, Double maxPrice, Integer maxQuantity,
+                         Sort sort) {
+    
+    public enum Sort { ID, PRICE_ASC, PRICE_DESC }
+    
+    public ItemFilter {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new InvalidRequestException("minPrice must not be greater than maxPrice");
+        }
+        if (sort == null) {
+            sort = Sort.ID;
+        }
+    }
+    
+    public boolean byPrice() {
+        return sort != Sort.ID;
+    }
+}
@@ -0,0 +1,11 @@
+package com.anycomp.marketplace.dto;
+
+import java.util.List;
+
+// Outcome of a bulk catalog import; errors are capped, failed counts every rejected row
+public record ItemImportReport(long imported, long failed, List<RowError> errors, boolean errorsTruncated) {
+    
+    // 1-based line in the upload where the row starts; a quoted CSV field may carry a row over several lines
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.anycomp.marketplace.dto;
+
+// Item as returned by list and lookup endpoints: scalar columns and the seller id, no purchase graph
+public record ItemSummary(Long id, String name, String description, Double price, Integer quantity, Long sellerId) {
+    
+    public ItemSummary withQuantity(Integer quantity) {
+        return new ItemSummary(id, name, description, price, quantity, sellerId);
+    }
+}
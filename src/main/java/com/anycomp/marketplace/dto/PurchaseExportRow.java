@@ -0,0 +1,8 @@
+package com.anycomp.marketplace.dto;
+
+import java.time.LocalDateTime;
+
+// One purchase as written by the streaming export
+public record PurchaseExportRow(Long id, LocalDateTime purchaseDate, Long buyerId, Long itemId, String itemName,
+                                Long sellerId, Integer quantity, Double totalPrice) {
+}
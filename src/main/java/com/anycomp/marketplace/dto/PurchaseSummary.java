@@ -0,0 +1,9 @@
+package com.anycomp.marketplace.dto;
+
+import java.time.LocalDateTime;
+
+// Purchase as returned by list endpoints: scalar columns with the buyer, item and seller ids and
+// the item name, projected by the list queries without loading the buyer or item entities
+public record PurchaseSummary(Long id, Long buyerId, Long itemId, String itemName, Long sellerId,
+                              Integer quantity, Double totalPrice, LocalDateTime purchaseDate) {
+}
@@ -0,0 +1,11 @@
+package com.anycomp.marketplace.dto;
+
+import java.time.LocalDateTime;
+
+// One point of a sales time series
+public record SalesBucket(LocalDateTime bucketStart, Long quantity, Double revenue, Long orders) {
+    
+    public SalesBucket plus(long quantity, double revenue, long orders) {
+        return new SalesBucket(bucketStart, this.quantity + quantity, this.revenue + revenue, this.orders + orders);
+    }
+}
@@ -0,0 +1,5 @@
+package com.anycomp.marketplace.dto;
+
+// Seller as returned by list and lookup endpoints, without the items collection
+public record SellerSummary(Long id, String name, String email) {
+}
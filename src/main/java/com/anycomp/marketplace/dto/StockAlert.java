@@ -0,0 +1,9 @@
+package com.anycomp.marketplace.dto;
+
+// Pushed to a seller's low-stock feed when an item's quantity crosses their threshold.
+// LOW: fell to the threshold or below; RESTOCKED: rose back above it.
+public record StockAlert(String type, Long itemId, Long sellerId, Integer quantity, Integer threshold) {
+
+    public static final String LOW = "LOW";
+    public static final String RESTOCKED = "RESTOCKED";
+}
@@ -0,0 +1,43 @@
+package com.anycomp.marketplace.entity;
+
+import jakarta.persistence.*;
+
+// Running total of purchases for one buyer, folded from
+// purchase_total_deltas and rebuilt periodically by PurchaseTotals
+@Entity
+@Table(name = "buyer_spending")
+public class BuyerSpending {
+    
+    @Id
+    @Column(name = "buyer_id")
+    private Long buyerId;
+    
+    @Column(nullable = false)
+    private Double totalSpending;
+    
+    // Default constructor
+    public BuyerSpending() {}
+    
+    // Constructor with parameters
+    public BuyerSpending(Long buyerId, Double totalSpending) {
+        this.buyerId = buyerId;
+        this.totalSpending = totalSpending;
+    }
+    
+    // Getters and Setters
+    public Long getBuyerId() {
+        return buyerId;
+    }
+    
+    public void setBuyerId(Long buyerId) {
+        this.buyerId = buyerId;
+    }
+    
+    public Double getTotalSpending() {
+        return totalSpending;
+    }
+    
+    public void setTotalSpending(Double totalSpending) {
+        this.totalSpending = totalSpending;
+    }
+}
@@ -0,0 +1,148 @@
+package com.anycomp.marketplace.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Completed response for one Idempotency-Key within a scope (the buyer), so a retry after a
+// restart is still replayed. Always inserted, never merged: saving a key that is already
+// stored fails instead of overwriting the first response.
+@Entity
+@IdClass(IdempotencyRecord.RecordId.class)
+@Table(name = "idempotency_keys",
+       indexes = @Index(name = "idx_idempotency_keys_created", columnList = "createdAt"))
+public class IdempotencyRecord implements Persistable<IdempotencyRecord.RecordId> {
+    
+    public static final int MAX_KEY_LENGTH = 255;
+    public static final int MAX_SCOPE_LENGTH = 64;
+    public static final int MAX_BODY_LENGTH = 16_384;
+    
+    @Id
+    @Column(length = MAX_SCOPE_LENGTH)
+    private String scope;
+    
+    @Id
+    @Column(name = "idempotency_key", length = MAX_KEY_LENGTH)
+    private String key;
+    
+    // The request the key was first used with; a different request under the same key is rejected
+    @Column(nullable = false, length = 255)
+    private String fingerprint;
+    
+    @Column(nullable = false)
+    private Integer status;
+    
+    @Column(nullable = false, length = MAX_BODY_LENGTH)
+    private String body;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Transient
+    private boolean stored;
+    
+    // Default constructor
+    public IdempotencyRecord() {}
+    
+    // Constructor with parameters
+    public IdempotencyRecord(String scope, String key, String fingerprint, Integer status, String body) {
+        this.scope = scope;
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.body = body;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    @Override
+    public RecordId getId() {
+        return new RecordId(scope, key);
+    }
+    
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+    
+    // Getters and Setters
+    public String getScope() {
+        return scope;
+    }
+    
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public void setKey(String key) {
+        this.key = key;
+    }
+    
+    public String getFingerprint() {
+        return fingerprint;
+    }
+    
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+    
+    public Integer getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+    
+    public String getBody() {
+        return body;
+    }
+    
+    public void setBody(String body) {
+        this.body = body;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    
+    public static class RecordId implements Serializable {
+        
+        private String scope;
+        private String key;
+        
+        public RecordId() {}
+        
+        public RecordId(String scope, String key) {
+            this.scope = scope;
+            this.key = key;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RecordId id && Objects.equals(scope, id.scope) && Objects.equals(key, id.key);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, key);
+        }
+    }
+}
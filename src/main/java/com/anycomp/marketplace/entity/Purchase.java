@@ -7,11 +7,17 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "purchases")
+@Table(name = "purchases", indexes = {
+    @Index(name = "idx_purchases_date_id", columnList = "purchaseDate, id"),
+    @Index(name = "idx_purchases_buyer_date_id", columnList = "buyer_id, purchaseDate, id"),
+    @Index(name = "idx_purchases_item_date_id", columnList = "item_id, purchaseDate, id")
+})
 public class Purchase {
     
+    // Pooled sequence ids (not IDENTITY) so Hibernate can batch purchase inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchases_seq")
+    @SequenceGenerator(name = "purchases_seq", sequenceName = "purchases_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
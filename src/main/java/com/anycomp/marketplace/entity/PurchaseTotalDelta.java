@@ -0,0 +1,71 @@
+package com.anycomp.marketplace.entity;
+
+import jakarta.persistence.*;
+
+// One not-yet-folded change to a seller's revenue and a buyer's spending, written in the
+// purchase or cancellation transaction and folded into the running totals by PurchaseTotals
+@Entity
+@Table(name = "purchase_total_deltas", indexes = {
+    @Index(name = "idx_purchase_total_deltas_seller", columnList = "seller_id"),
+    @Index(name = "idx_purchase_total_deltas_buyer", columnList = "buyer_id")
+})
+public class PurchaseTotalDelta {
+    
+    // Pooled sequence ids so a batch checkout inserts its deltas in one JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_total_deltas_seq")
+    @SequenceGenerator(name = "purchase_total_deltas_seq", sequenceName = "purchase_total_deltas_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+    
+    @Column(name = "buyer_id", nullable = false)
+    private Long buyerId;
+    
+    @Column(nullable = false)
+    private Double amount;
+    
+    // Default constructor
+    public PurchaseTotalDelta() {}
+    
+    // Constructor with parameters
+    public PurchaseTotalDelta(Long sellerId, Long buyerId, Double amount) {
+        this.sellerId = sellerId;
+        this.buyerId = buyerId;
+        this.amount = amount;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getSellerId() {
+        return sellerId;
+    }
+    
+    public void setSellerId(Long sellerId) {
+        this.sellerId = sellerId;
+    }
+    
+    public Long getBuyerId() {
+        return buyerId;
+    }
+    
+    public void setBuyerId(Long buyerId) {
+        this.buyerId = buyerId;
+    }
+    
+    public Double getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+}
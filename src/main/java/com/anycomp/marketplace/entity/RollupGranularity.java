@@ -0,0 +1,35 @@
+package com.anycomp.marketplace.entity;
+
+import com.anycomp.marketplace.exception.InvalidRequestException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+// Width of one sales rollup bucket
+public enum RollupGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+    
+    private final ChronoUnit unit;
+    
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+    
+    public LocalDateTime bucketOf(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+    
+    public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+        return unit.between(bucketOf(from), to) + 1;
+    }
+    
+    public static RollupGranularity parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Granularity must be HOUR or DAY");
+        }
+    }
+}
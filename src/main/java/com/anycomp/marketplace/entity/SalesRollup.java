@@ -0,0 +1,122 @@
+package com.anycomp.marketplace.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Sales of one item within one hour or day bucket, maintained from purchases and cancellations
+@Entity
+@Table(name = "sales_rollups", 
+       uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollups_bucket_item", 
+                                             columnNames = {"granularity", "bucketStart", "item_id"}),
+       indexes = {
+           @Index(name = "idx_sales_rollups_bucket", columnList = "granularity, bucketStart"),
+           @Index(name = "idx_sales_rollups_seller_bucket", columnList = "granularity, seller_id, bucketStart")
+       })
+public class SalesRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private RollupGranularity granularity;
+    
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+    
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+    
+    @Column(nullable = false)
+    private Long quantity;
+    
+    @Column(nullable = false)
+    private Double revenue;
+    
+    @Column(nullable = false)
+    private Long orders;
+    
+    // Default constructor
+    public SalesRollup() {}
+    
+    // Constructor with parameters
+    public SalesRollup(RollupGranularity granularity, LocalDateTime bucketStart, Long itemId, Long sellerId,
+                       Long quantity, Double revenue, Long orders) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.itemId = itemId;
+        this.sellerId = sellerId;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.orders = orders;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+    
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+    
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+    
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+    
+    public Long getItemId() {
+        return itemId;
+    }
+    
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+    
+    public Long getSellerId() {
+        return sellerId;
+    }
+    
+    public void setSellerId(Long sellerId) {
+        this.sellerId = sellerId;
+    }
+    
+    public Long getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+    
+    public Double getRevenue() {
+        return revenue;
+    }
+    
+    public void setRevenue(Double revenue) {
+        this.revenue = revenue;
+    }
+    
+    public Long getOrders() {
+        return orders;
+    }
+    
+    public void setOrders(Long orders) {
+        this.orders = orders;
+    }
+}
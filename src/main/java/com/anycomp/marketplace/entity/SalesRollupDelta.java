@@ -0,0 +1,108 @@
+package com.anycomp.marketplace.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One not-yet-folded change to an item's sales within one hour, written in the purchase or
+// cancellation transaction and folded into the hourly and daily buckets by SalesRollups
+@Entity
+@Table(name = "sales_rollup_deltas", indexes = {
+    @Index(name = "idx_sales_rollup_deltas_hour", columnList = "hourStart")
+})
+public class SalesRollupDelta {
+    
+    // Pooled sequence ids so a batch checkout inserts its deltas in one JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_rollup_deltas_seq")
+    @SequenceGenerator(name = "sales_rollup_deltas_seq", sequenceName = "sales_rollup_deltas_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDateTime hourStart;
+    
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+    
+    @Column(nullable = false)
+    private Long quantity;
+    
+    @Column(nullable = false)
+    private Double revenue;
+    
+    @Column(nullable = false)
+    private Long orders;
+    
+    // Default constructor
+    public SalesRollupDelta() {}
+    
+    // Constructor with parameters
+    public SalesRollupDelta(LocalDateTime hourStart, Long itemId, Long sellerId,
+                            Long quantity, Double revenue, Long orders) {
+        this.hourStart = hourStart;
+        this.itemId = itemId;
+        this.sellerId = sellerId;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.orders = orders;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public LocalDateTime getHourStart() {
+        return hourStart;
+    }
+    
+    public void setHourStart(LocalDateTime hourStart) {
+        this.hourStart = hourStart;
+    }
+    
+    public Long getItemId() {
+        return itemId;
+    }
+    
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+    
+    public Long getSellerId() {
+        return sellerId;
+    }
+    
+    public void setSellerId(Long sellerId) {
+        this.sellerId = sellerId;
+    }
+    
+    public Long getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+    
+    public Double getRevenue() {
+        return revenue;
+    }
+    
+    public void setRevenue(Double revenue) {
+        this.revenue = revenue;
+    }
+    
+    public Long getOrders() {
+        return orders;
+    }
+    
+    public void setOrders(Long orders) {
+        this.orders = orders;
+    }
+}
@@ -0,0 +1,43 @@
+package com.anycomp.marketplace.entity;
+
+import jakarta.persistence.*;
+
+// Running total of purchases for one seller, folded from
+// purchase_total_deltas and rebuilt periodically by PurchaseTotals
+@Entity
+@Table(name = "seller_revenue")
+public class SellerRevenue {
+    
+    @Id
+    @Column(name = "seller_id")
+    private Long sellerId;
+    
+    @Column(nullable = false)
+    private Double totalRevenue;
+    
+    // Default constructor
+    public SellerRevenue() {}
+    
+    // Constructor with parameters
+    public SellerRevenue(Long sellerId, Double totalRevenue) {
+        this.sellerId = sellerId;
+        this.totalRevenue = totalRevenue;
+    }
+    
+    // Getters and Setters
+    public Long getSellerId() {
+        return sellerId;
+    }
+    
+    public void setSellerId(Long sellerId) {
+        this.sellerId = sellerId;
+    }
+    
+    public Double getTotalRevenue() {
+        return totalRevenue;
+    }
+    
+    public void setTotalRevenue(Double totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+}
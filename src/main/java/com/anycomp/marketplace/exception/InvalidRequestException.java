@@ -0,0 +1,10 @@
+package com.anycomp.marketplace.exception;
+
+// Malformed client input (a cursor, filter, range or format parameter), answered with a 400.
+// Other IllegalArgumentExceptions are not the client's fault and stay server errors.
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
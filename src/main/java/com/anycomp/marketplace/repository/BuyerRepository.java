@@ -1,5 +1,6 @@
 package com.anycomp.marketplace.repository;
 
+import com.anycomp.marketplace.dto.BuyerSummary;
 import com.anycomp.marketplace.entity.Buyer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,6 +8,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,18 +21,48 @@ public interface BuyerRepository extends JpaRepository<Buyer, Long> {
     // Check if buyer exists by email
     boolean existsByEmail(String email);
     
+    // List queries project straight into BuyerSummary so no purchase graph is loaded
+    String SUMMARY = "SELECT new com.anycomp.marketplace.dto.BuyerSummary(b.id, b.name, b.email) FROM Buyer b";
+    String HAS_PURCHASES = " WHERE EXISTS (SELECT 1 FROM Purchase p WHERE p.buyer = b)";
+    
     // Find buyers by name containing (case insensitive)
-    @Query("SELECT b FROM Buyer b WHERE LOWER(b.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    Page<Buyer> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
+    // Single row for the id caches
+    @Query(SUMMARY + " WHERE b.id = :id")
+    Optional<BuyerSummary> findSummaryById(@Param("id") Long id);
+    
+    
+    @Query(value = SUMMARY + " WHERE LOWER(b.name) LIKE LOWER(CONCAT('%', :name, '%'))", 
+           countQuery = "SELECT COUNT(b) FROM Buyer b WHERE LOWER(b.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    Page<BuyerSummary> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
     
     // Find all buyers with pagination
     Page<Buyer> findAll(Pageable pageable);
     
+    // Find all buyers as summaries
+    @Query(value = SUMMARY, countQuery = "SELECT COUNT(b) FROM Buyer b")
+    Page<BuyerSummary> findAllSummaries(Pageable pageable);
+    
+    // Find buyer summaries by id
+    @Query(SUMMARY + " WHERE b.id IN :ids")
+    List<BuyerSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
     // Find buyers who have made purchases
-    @Query("SELECT DISTINCT b FROM Buyer b JOIN b.purchasedItems p")
-    Page<Buyer> findBuyersWithPurchases(Pageable pageable);
+    @Query(value = SUMMARY + HAS_PURCHASES, countQuery = "SELECT COUNT(b) FROM Buyer b" + HAS_PURCHASES)
+    Page<BuyerSummary> findBuyersWithPurchases(Pageable pageable);
     
     // Count total number of buyers
     @Query("SELECT COUNT(b) FROM Buyer b")
     long countTotalBuyers();
+    
+    // Find which of the given buyer ids exist
+    @Query("SELECT b.id FROM Buyer b WHERE b.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    // Keyset page ordered by id
+    @Query(SUMMARY + " WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<BuyerSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable limit);
+    
+    // Names in id order, used to build the search index in chunks
+    @Query("SELECT b.id, b.name FROM Buyer b WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<Object[]> findSearchTextAfter(@Param("afterId") Long afterId, Pageable limit);
 }
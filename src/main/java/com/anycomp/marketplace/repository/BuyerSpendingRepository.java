@@ -0,0 +1,38 @@
+package com.anycomp.marketplace.repository;
+
+import com.anycomp.marketplace.entity.BuyerSpending;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface BuyerSpendingRepository extends JpaRepository<BuyerSpending, Long> {
+    
+    
+    // The folded total plus any deltas not folded into it yet
+    @Query("SELECT b.totalSpending + COALESCE((SELECT SUM(d.amount) FROM PurchaseTotalDelta d " +
+           "WHERE d.buyerId = b.buyerId), 0.0) FROM BuyerSpending b WHERE b.buyerId = :buyerId")
+    Optional<Double> findTotalByBuyerId(@Param("buyerId") Long buyerId);
+    
+    
+    // Returns 0 when the buyer has no row yet; reads then fall back to SUM and reconciliation creates it
+    @Modifying
+    @Query("UPDATE BuyerSpending b SET b.totalSpending = b.totalSpending + :amount WHERE b.buyerId = :buyerId")
+    int addToTotal(@Param("buyerId") Long buyerId, @Param("amount") Double amount);
+    
+    
+    @Modifying
+    @Query("INSERT INTO BuyerSpending (buyerId, totalSpending) " +
+           "SELECT u.id, 0.0 FROM Buyer u " +
+           "WHERE NOT EXISTS (SELECT 1 FROM BuyerSpending b WHERE b.buyerId = u.id)")
+    int insertMissing();
+    
+    
+    @Modifying
+    @Query("UPDATE BuyerSpending b SET b.totalSpending = " +
+           "(SELECT COALESCE(SUM(p.totalPrice), 0.0) FROM Purchase p WHERE p.buyer.id = b.buyerId)")
+    int rebuildAll();
+}
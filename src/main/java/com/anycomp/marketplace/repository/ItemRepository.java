@@ -1,45 +1,97 @@
 package com.anycomp.marketplace.repository;
 
+import com.anycomp.marketplace.dto.ItemSummary;
 import com.anycomp.marketplace.entity.Item;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
     
     
-    Page<Item> findBySellerId(Long sellerId, Pageable pageable);
+    // List queries project straight into ItemSummary so no purchase graph is loaded
+    String SUMMARY = "SELECT new com.anycomp.marketplace.dto.ItemSummary(" +
+                     "i.id, i.name, i.description, i.price, i.quantity, i.seller.id) FROM Item i";
     
     
-    @Query("SELECT i FROM Item i WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    Page<Item> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
+    // Optional criteria of an ItemFilter; a null parameter matches every row
+    String FILTER = " WHERE (:sellerId IS NULL OR i.seller.id = :sellerId)" +
+                    " AND (:inStock IS NULL OR (:inStock = TRUE AND i.quantity > 0) OR (:inStock = FALSE AND i.quantity <= 0))" +
+                    " AND (:minPrice IS NULL OR i.price >= :minPrice)" +
+                    " AND (:maxPrice IS NULL OR i.price <= :maxPrice)" +
+                    " AND (:maxQuantity IS NULL OR i.quantity <= :maxQuantity)";
     
     
-    @Query("SELECT i FROM Item i WHERE i.price BETWEEN :minPrice AND :maxPrice")
-    Page<Item> findByPriceBetween(@Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice, Pageable pageable);
+    // Single row for the id caches
+    @Query(SUMMARY + " WHERE i.id = :id")
+    Optional<ItemSummary> findSummaryById(@Param("id") Long id);
     
     
-    @Query("SELECT i FROM Item i WHERE i.quantity > 0")
-    Page<Item> findAvailableItems(Pageable pageable);
+    @Query(value = SUMMARY, countQuery = "SELECT COUNT(i) FROM Item i")
+    Page<ItemSummary> findAllSummaries(Pageable pageable);
     
     
-    @Query("SELECT i FROM Item i WHERE i.quantity <= :threshold")
-    Page<Item> findLowStockItems(@Param("threshold") Integer threshold, Pageable pageable);
+    @Query(value = SUMMARY + " WHERE i.seller.id = :sellerId", 
+           countQuery = "SELECT COUNT(i) FROM Item i WHERE i.seller.id = :sellerId")
+    Page<ItemSummary> findBySellerId(@Param("sellerId") Long sellerId, Pageable pageable);
     
     
-    @Query("SELECT i FROM Item i WHERE i.seller.id = :sellerId AND i.quantity > 0")
-    Page<Item> findAvailableItemsBySellerId(@Param("sellerId") Long sellerId, Pageable pageable);
+    @Query(value = SUMMARY + " WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :name, '%'))", 
+           countQuery = "SELECT COUNT(i) FROM Item i WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    Page<ItemSummary> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
     
     
-    Page<Item> findAllByOrderByPriceAsc(Pageable pageable);
+    @Query(value = SUMMARY + " WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
+                   "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))", 
+           countQuery = "SELECT COUNT(i) FROM Item i WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
+                        "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))")
+    Page<ItemSummary> findByNameOrDescriptionContainingIgnoreCase(@Param("text") String text, Pageable pageable);
     
     
-    Page<Item> findAllByOrderByPriceDesc(Pageable pageable);
+    @Query(SUMMARY + " WHERE i.id IN :ids")
+    List<ItemSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    
+    @Query(value = SUMMARY + " WHERE i.price BETWEEN :minPrice AND :maxPrice", 
+           countQuery = "SELECT COUNT(i) FROM Item i WHERE i.price BETWEEN :minPrice AND :maxPrice")
+    Page<ItemSummary> findByPriceBetween(@Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice, Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + " WHERE i.quantity > 0", 
+           countQuery = "SELECT COUNT(i) FROM Item i WHERE i.quantity > 0")
+    Page<ItemSummary> findAvailableItems(Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + " WHERE i.quantity <= :threshold", 
+           countQuery = "SELECT COUNT(i) FROM Item i WHERE i.quantity <= :threshold")
+    Page<ItemSummary> findLowStockItems(@Param("threshold") Integer threshold, Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + " WHERE i.seller.id = :sellerId AND i.quantity <= :threshold", 
+           countQuery = "SELECT COUNT(i) FROM Item i WHERE i.seller.id = :sellerId AND i.quantity <= :threshold")
+    Page<ItemSummary> findLowStockItemsBySellerId(@Param("threshold") Integer threshold, 
+                                                  @Param("sellerId") Long sellerId, Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + " WHERE i.seller.id = :sellerId AND i.quantity > 0", 
+           countQuery = "SELECT COUNT(i) FROM Item i WHERE i.seller.id = :sellerId AND i.quantity > 0")
+    Page<ItemSummary> findAvailableItemsBySellerId(@Param("sellerId") Long sellerId, Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + " ORDER BY i.price ASC", countQuery = "SELECT COUNT(i) FROM Item i")
+    Page<ItemSummary> findAllByOrderByPriceAsc(Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + " ORDER BY i.price DESC", countQuery = "SELECT COUNT(i) FROM Item i")
+    Page<ItemSummary> findAllByOrderByPriceDesc(Pageable pageable);
     
     
     @Query("SELECT COUNT(i) FROM Item i")
@@ -48,4 +100,79 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     
     @Query("SELECT COUNT(i) FROM Item i WHERE i.quantity > 0")
     long countAvailableItems();
+    
+    
+    // Conditional decrement: returns 0 when the item is missing or has insufficient stock
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Item i SET i.quantity = i.quantity - :quantity WHERE i.id = :id AND i.quantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Item i SET i.quantity = i.quantity + :quantity WHERE i.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    
+    // Unconditional write-behind of stock already admitted by the inventory engine
+    @Modifying
+    @Query("UPDATE Item i SET i.quantity = i.quantity - :quantity WHERE i.id = :id")
+    int consumeStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    
+    @Query("SELECT i.quantity FROM Item i WHERE i.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+    
+    
+    @Query("SELECT i.id, i.quantity FROM Item i")
+    List<Object[]> findAllStockLevels();
+    
+    
+    // Keyset pages ordered by id
+    @Query(SUMMARY + " WHERE i.id > :afterId ORDER BY i.id ASC")
+    List<ItemSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable limit);
+    
+    
+    @Query(SUMMARY + " WHERE i.seller.id = :sellerId AND i.id > :afterId ORDER BY i.id ASC")
+    List<ItemSummary> findSummariesBySellerIdAfter(@Param("sellerId") Long sellerId, @Param("afterId") Long afterId, Pageable limit);
+    
+    
+    // Stock per item in id order, used to build the low-stock index in chunks
+    @Query("SELECT i.id, i.seller.id, i.quantity FROM Item i WHERE i.id > :afterId ORDER BY i.id ASC")
+    List<Object[]> findStockLevelsAfter(@Param("afterId") Long afterId, Pageable limit);
+    
+    
+    // Searchable text in id order, used to build the search index in chunks
+    @Query("SELECT i.id, i.name, i.description FROM Item i WHERE i.id > :afterId ORDER BY i.id ASC")
+    List<Object[]> findSearchTextAfter(@Param("afterId") Long afterId, Pageable limit);
+    
+    
+    // Catalog filter index rows in id order, loaded in chunks
+    @Query("SELECT i.id, i.seller.id, i.price, i.quantity FROM Item i WHERE i.id > :afterId ORDER BY i.id ASC")
+    List<Object[]> findCatalogEntriesAfter(@Param("afterId") Long afterId, Pageable limit);
+    
+    
+    // Filtered keyset pages, used when the catalog filter index is off
+    @Query(SUMMARY + FILTER + " AND i.id > :afterId ORDER BY i.id ASC")
+    List<ItemSummary> filterAfterId(@Param("sellerId") Long sellerId, @Param("inStock") Boolean inStock,
+                                    @Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice,
+                                    @Param("maxQuantity") Integer maxQuantity,
+                                    @Param("afterId") Long afterId, Pageable limit);
+    
+    
+    @Query(SUMMARY + FILTER + " AND (:afterPrice IS NULL OR i.price > :afterPrice OR (i.price = :afterPrice AND i.id > :afterId))" +
+           " ORDER BY i.price ASC, i.id ASC")
+    List<ItemSummary> filterByPriceAsc(@Param("sellerId") Long sellerId, @Param("inStock") Boolean inStock,
+                                       @Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice,
+                                       @Param("maxQuantity") Integer maxQuantity,
+                                       @Param("afterPrice") Double afterPrice, @Param("afterId") Long afterId,
+                                       Pageable limit);
+    
+    
+    @Query(SUMMARY + FILTER + " AND (:afterPrice IS NULL OR i.price < :afterPrice OR (i.price = :afterPrice AND i.id < :afterId))" +
+           " ORDER BY i.price DESC, i.id DESC")
+    List<ItemSummary> filterByPriceDesc(@Param("sellerId") Long sellerId, @Param("inStock") Boolean inStock,
+                                        @Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice,
+                                        @Param("maxQuantity") Integer maxQuantity,
+                                        @Param("afterPrice") Double afterPrice, @Param("afterId") Long afterId,
+                                        Pageable limit);
 }
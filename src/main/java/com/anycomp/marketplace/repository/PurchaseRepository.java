@@ -1,37 +1,65 @@
 package com.anycomp.marketplace.repository;
 
+import com.anycomp.marketplace.dto.BestSeller;
+import com.anycomp.marketplace.dto.PurchaseExportRow;
+import com.anycomp.marketplace.dto.PurchaseSummary;
 import com.anycomp.marketplace.entity.Purchase;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
     
+    // List queries project straight into PurchaseSummary: the item is joined for its name,
+    // the buyer and seller ids come from foreign keys, and no entity is loaded
+    String SUMMARY = "SELECT new com.anycomp.marketplace.dto.PurchaseSummary(" +
+                     "p.id, p.buyer.id, i.id, i.name, i.seller.id, p.quantity, p.totalPrice, p.purchaseDate) " +
+                     "FROM Purchase p JOIN p.item i";
     
-    Page<Purchase> findByBuyerId(Long buyerId, Pageable pageable);
+    // Keyset condition for pages ordered by purchaseDate DESC, id DESC
+    String BEFORE_CURSOR = "(p.purchaseDate < :beforeDate OR (p.purchaseDate = :beforeDate AND p.id < :beforeId))";
+    String NEWEST_FIRST = " ORDER BY p.purchaseDate DESC, p.id DESC";
     
     
-    Page<Purchase> findByItemId(Long itemId, Pageable pageable);
+    @Query(value = SUMMARY, countQuery = "SELECT COUNT(p) FROM Purchase p")
+    Page<PurchaseSummary> findAllSummaries(Pageable pageable);
     
     
-    @Query("SELECT p FROM Purchase p WHERE p.item.seller.id = :sellerId")
-    Page<Purchase> findByItemSellerId(@Param("sellerId") Long sellerId, Pageable pageable);
+    @Query(value = SUMMARY + " WHERE p.buyer.id = :buyerId", 
+           countQuery = "SELECT COUNT(p) FROM Purchase p WHERE p.buyer.id = :buyerId")
+    Page<PurchaseSummary> findByBuyerId(@Param("buyerId") Long buyerId, Pageable pageable);
     
     
-    @Query("SELECT p FROM Purchase p WHERE p.purchaseDate BETWEEN :startDate AND :endDate")
-    Page<Purchase> findByPurchaseDateBetween(@Param("startDate") LocalDateTime startDate, 
-                                           @Param("endDate") LocalDateTime endDate, 
-                                           Pageable pageable);
+    @Query(value = SUMMARY + " WHERE i.id = :itemId", 
+           countQuery = "SELECT COUNT(p) FROM Purchase p WHERE p.item.id = :itemId")
+    Page<PurchaseSummary> findByItemId(@Param("itemId") Long itemId, Pageable pageable);
     
     
-    @Query("SELECT p FROM Purchase p WHERE p.purchaseDate >= :fromDate ORDER BY p.purchaseDate DESC")
-    Page<Purchase> findRecentPurchases(@Param("fromDate") LocalDateTime fromDate, Pageable pageable);
+    @Query(value = SUMMARY + " WHERE i.seller.id = :sellerId", 
+           countQuery = "SELECT COUNT(p) FROM Purchase p WHERE p.item.seller.id = :sellerId")
+    Page<PurchaseSummary> findByItemSellerId(@Param("sellerId") Long sellerId, Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + " WHERE p.purchaseDate BETWEEN :startDate AND :endDate", 
+           countQuery = "SELECT COUNT(p) FROM Purchase p WHERE p.purchaseDate BETWEEN :startDate AND :endDate")
+    Page<PurchaseSummary> findByPurchaseDateBetween(@Param("startDate") LocalDateTime startDate, 
+                                                    @Param("endDate") LocalDateTime endDate, 
+                                                    Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + " WHERE p.purchaseDate >= :fromDate ORDER BY p.purchaseDate DESC", 
+           countQuery = "SELECT COUNT(p) FROM Purchase p WHERE p.purchaseDate >= :fromDate")
+    Page<PurchaseSummary> findRecentPurchases(@Param("fromDate") LocalDateTime fromDate, Pageable pageable);
     
     
     @Query("SELECT COALESCE(SUM(p.totalPrice), 0) FROM Purchase p WHERE p.item.seller.id = :sellerId")
@@ -42,13 +70,85 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
     Double getTotalSpendingForBuyer(@Param("buyerId") Long buyerId);
     
     
-    @Query("SELECT p.item.id, p.item.name, SUM(p.quantity) as totalQuantity " +
-           "FROM Purchase p " +
-           "GROUP BY p.item.id, p.item.name " +
-           "ORDER BY totalQuantity DESC")
-    List<Object[]> getMostPurchasedItems();
+    String BEST_SELLERS = "SELECT new com.anycomp.marketplace.dto.BestSeller(i.id, i.name, SUM(p.quantity)) " +
+                          "FROM Purchase p JOIN p.item i " +
+                          "GROUP BY i.id, i.name " +
+                          "ORDER BY SUM(p.quantity) DESC, i.id";
+    
+    
+    // Every item ever sold; seeds the in-memory leaderboard
+    @Query(BEST_SELLERS)
+    List<BestSeller> findAllBestSellers();
+    
+    
+    @Query(BEST_SELLERS)
+    List<BestSeller> findBestSellers(Pageable limit);
     
     
     @Query("SELECT COUNT(p) FROM Purchase p")
     long countTotalPurchases();
+    
+    
+    // Export rows are scalar projections streamed with a JDBC fetch size, so neither the
+    // driver nor the persistence context holds more than one fetch of rows at a time
+    String EXPORT = "SELECT new com.anycomp.marketplace.dto.PurchaseExportRow(" +
+                    "p.id, p.purchaseDate, p.buyer.id, i.id, i.name, i.seller.id, p.quantity, p.totalPrice) " +
+                    "FROM Purchase p JOIN p.item i " +
+                    "WHERE p.purchaseDate >= :from AND p.purchaseDate < :to";
+    String EXPORT_FETCH_SIZE = "1000";
+    
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT + " ORDER BY p.id")
+    Stream<PurchaseExportRow> streamForExport(@Param("from") LocalDateTime from, 
+                                              @Param("to") LocalDateTime to);
+    
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT + " AND i.seller.id = :sellerId ORDER BY p.id")
+    Stream<PurchaseExportRow> streamForExportBySellerId(@Param("from") LocalDateTime from, 
+                                                        @Param("to") LocalDateTime to, 
+                                                        @Param("sellerId") Long sellerId);
+    
+    
+    // id, purchaseDate, itemId, sellerId, quantity, totalPrice in id order; backfills sales rollups
+    @Query("SELECT p.id, p.purchaseDate, i.id, i.seller.id, p.quantity, p.totalPrice " +
+           "FROM Purchase p JOIN p.item i WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findRollupRowsAfter(@Param("afterId") Long afterId, Pageable limit);
+    
+    
+    @Query(SUMMARY + " WHERE " + BEFORE_CURSOR + NEWEST_FIRST)
+    List<PurchaseSummary> findPageBefore(@Param("beforeDate") LocalDateTime beforeDate, 
+                                         @Param("beforeId") Long beforeId, 
+                                         Pageable limit);
+    
+    
+    @Query(SUMMARY + " WHERE p.buyer.id = :buyerId AND " + BEFORE_CURSOR + NEWEST_FIRST)
+    List<PurchaseSummary> findPageByBuyerIdBefore(@Param("buyerId") Long buyerId, 
+                                                  @Param("beforeDate") LocalDateTime beforeDate, 
+                                                  @Param("beforeId") Long beforeId, 
+                                                  Pageable limit);
+    
+    
+    @Query(SUMMARY + " WHERE i.id = :itemId AND " + BEFORE_CURSOR + NEWEST_FIRST)
+    List<PurchaseSummary> findPageByItemIdBefore(@Param("itemId") Long itemId, 
+                                                 @Param("beforeDate") LocalDateTime beforeDate, 
+                                                 @Param("beforeId") Long beforeId, 
+                                                 Pageable limit);
+    
+    
+    @Query(SUMMARY + " WHERE i.seller.id = :sellerId AND " + BEFORE_CURSOR + NEWEST_FIRST)
+    List<PurchaseSummary> findPageBySellerIdBefore(@Param("sellerId") Long sellerId, 
+                                                   @Param("beforeDate") LocalDateTime beforeDate, 
+                                                   @Param("beforeId") Long beforeId, 
+                                                   Pageable limit);
+    
+    
+    @Query(SUMMARY + " WHERE p.purchaseDate BETWEEN :startDate AND :endDate AND " 
+           + BEFORE_CURSOR + NEWEST_FIRST)
+    List<PurchaseSummary> findPageByPurchaseDateBetweenBefore(@Param("startDate") LocalDateTime startDate, 
+                                                              @Param("endDate") LocalDateTime endDate, 
+                                                              @Param("beforeDate") LocalDateTime beforeDate, 
+                                                              @Param("beforeId") Long beforeId, 
+                                                              Pageable limit);
 }
@@ -0,0 +1,31 @@
+package com.anycomp.marketplace.repository;
+
+import com.anycomp.marketplace.entity.PurchaseTotalDelta;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PurchaseTotalDeltaRepository extends JpaRepository<PurchaseTotalDelta, Long> {
+    
+    
+    @Query("SELECT d FROM PurchaseTotalDelta d ORDER BY d.id")
+    List<PurchaseTotalDelta> findOldest(Pageable pageable);
+    
+    
+    @Modifying
+    @Query("DELETE FROM PurchaseTotalDelta d WHERE d.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+    
+    
+    // Removes every delta the current transaction can see; under repeatable read that is
+    // exactly the deltas of the purchases the same snapshot sees
+    @Modifying
+    @Query("DELETE FROM PurchaseTotalDelta d")
+    int deleteVisible();
+}
@@ -0,0 +1,57 @@
+package com.anycomp.marketplace.repository;
+
+import com.anycomp.marketplace.dto.SalesBucket;
+import com.anycomp.marketplace.entity.SalesRollupDelta;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SalesRollupDeltaRepository extends JpaRepository<SalesRollupDelta, Long> {
+    
+    // Unfolded deltas in [from, to) summed per hour, over whichever items the filter keeps
+    String HOURS = "SELECT new com.anycomp.marketplace.dto.SalesBucket(" +
+                   "d.hourStart, SUM(d.quantity), SUM(d.revenue), SUM(d.orders)) " +
+                   "FROM SalesRollupDelta d " +
+                   "WHERE d.hourStart >= :from AND d.hourStart < :to";
+    String BY_HOUR = " GROUP BY d.hourStart ORDER BY d.hourStart";
+    
+    
+    @Query("SELECT d FROM SalesRollupDelta d ORDER BY d.id")
+    List<SalesRollupDelta> findOldest(Pageable pageable);
+    
+    
+    @Modifying
+    @Query("DELETE FROM SalesRollupDelta d WHERE d.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+    
+    
+    // Removes every delta the current transaction can see; under repeatable read that is
+    // exactly the deltas of the purchases the same snapshot sees
+    @Modifying
+    @Query("DELETE FROM SalesRollupDelta d")
+    int deleteVisible();
+    
+    
+    @Query(HOURS + BY_HOUR)
+    List<SalesBucket> findHours(@Param("from") LocalDateTime from, 
+                                @Param("to") LocalDateTime to);
+    
+    
+    @Query(HOURS + " AND d.itemId = :itemId" + BY_HOUR)
+    List<SalesBucket> findHoursByItemId(@Param("from") LocalDateTime from, 
+                                        @Param("to") LocalDateTime to, 
+                                        @Param("itemId") Long itemId);
+    
+    
+    @Query(HOURS + " AND d.sellerId = :sellerId" + BY_HOUR)
+    List<SalesBucket> findHoursBySellerId(@Param("from") LocalDateTime from, 
+                                          @Param("to") LocalDateTime to, 
+                                          @Param("sellerId") Long sellerId);
+}
@@ -0,0 +1,56 @@
+package com.anycomp.marketplace.repository;
+
+import com.anycomp.marketplace.dto.SalesBucket;
+import com.anycomp.marketplace.entity.RollupGranularity;
+import com.anycomp.marketplace.entity.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+    
+    // Buckets in [from, to), summed over whichever items the filter keeps
+    String SERIES = "SELECT new com.anycomp.marketplace.dto.SalesBucket(" +
+                    "r.bucketStart, SUM(r.quantity), SUM(r.revenue), SUM(r.orders)) " +
+                    "FROM SalesRollup r " +
+                    "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to";
+    String BY_BUCKET = " GROUP BY r.bucketStart ORDER BY r.bucketStart";
+    
+    
+    // Returns 0 when the bucket row does not exist yet
+    @Modifying
+    @Query("UPDATE SalesRollup r SET r.quantity = r.quantity + :quantity, " +
+           "r.revenue = r.revenue + :revenue, r.orders = r.orders + :orders " +
+           "WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart AND r.itemId = :itemId")
+    int addToBucket(@Param("granularity") RollupGranularity granularity, 
+                    @Param("bucketStart") LocalDateTime bucketStart, 
+                    @Param("itemId") Long itemId, 
+                    @Param("quantity") Long quantity, 
+                    @Param("revenue") Double revenue, 
+                    @Param("orders") Long orders);
+    
+    
+    @Query(SERIES + BY_BUCKET)
+    List<SalesBucket> findSeries(@Param("granularity") RollupGranularity granularity, 
+                                 @Param("from") LocalDateTime from, 
+                                 @Param("to") LocalDateTime to);
+    
+    
+    @Query(SERIES + " AND r.itemId = :itemId" + BY_BUCKET)
+    List<SalesBucket> findSeriesByItemId(@Param("granularity") RollupGranularity granularity, 
+                                         @Param("from") LocalDateTime from, 
+                                         @Param("to") LocalDateTime to, 
+                                         @Param("itemId") Long itemId);
+    
+    
+    @Query(SERIES + " AND r.sellerId = :sellerId" + BY_BUCKET)
+    List<SalesBucket> findSeriesBySellerId(@Param("granularity") RollupGranularity granularity, 
+                                           @Param("from") LocalDateTime from, 
+                                           @Param("to") LocalDateTime to, 
+                                           @Param("sellerId") Long sellerId);
+}
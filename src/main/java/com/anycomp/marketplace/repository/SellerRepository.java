@@ -1,5 +1,6 @@
 package com.anycomp.marketplace.repository;
 
+import com.anycomp.marketplace.dto.SellerSummary;
 import com.anycomp.marketplace.entity.Seller;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,6 +8,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -19,21 +22,50 @@ public interface SellerRepository extends JpaRepository<Seller, Long> {
     boolean existsByEmail(String email);
     
     
-    @Query("SELECT s FROM Seller s WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    Page<Seller> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
+    // List queries project straight into SellerSummary so no item graph is loaded
+    String SUMMARY = "SELECT new com.anycomp.marketplace.dto.SellerSummary(s.id, s.name, s.email) FROM Seller s";
+    String HAS_ITEMS = " WHERE EXISTS (SELECT 1 FROM Item i WHERE i.seller = s)";
+    String HAS_SALES = " WHERE EXISTS (SELECT 1 FROM Purchase p WHERE p.item.seller = s)";
+    
+    
+    // Single row for the id caches
+    @Query(SUMMARY + " WHERE s.id = :id")
+    Optional<SellerSummary> findSummaryById(@Param("id") Long id);
+    
+    
+    @Query(value = SUMMARY + " WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))", 
+           countQuery = "SELECT COUNT(s) FROM Seller s WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    Page<SellerSummary> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
     
     
     Page<Seller> findAll(Pageable pageable);
     
     
-    @Query("SELECT DISTINCT s FROM Seller s JOIN s.items i")
-    Page<Seller> findSellersWithItems(Pageable pageable);
+    @Query(value = SUMMARY, countQuery = "SELECT COUNT(s) FROM Seller s")
+    Page<SellerSummary> findAllSummaries(Pageable pageable);
+    
+    
+    @Query(SUMMARY + " WHERE s.id IN :ids")
+    List<SellerSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
     
     
-    @Query("SELECT DISTINCT s FROM Seller s JOIN s.items i JOIN i.purchases p")
-    Page<Seller> findSellersWithSales(Pageable pageable);
+    @Query(value = SUMMARY + HAS_ITEMS, countQuery = "SELECT COUNT(s) FROM Seller s" + HAS_ITEMS)
+    Page<SellerSummary> findSellersWithItems(Pageable pageable);
+    
+    
+    @Query(value = SUMMARY + HAS_SALES, countQuery = "SELECT COUNT(s) FROM Seller s" + HAS_SALES)
+    Page<SellerSummary> findSellersWithSales(Pageable pageable);
     
     
     @Query("SELECT COUNT(s) FROM Seller s")
     long countTotalSellers();
+    
+    
+    // Keyset page ordered by id
+    @Query(SUMMARY + " WHERE s.id > :afterId ORDER BY s.id ASC")
+    List<SellerSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable limit);
+    
+    
+    @Query("SELECT s.id, s.name FROM Seller s WHERE s.id > :afterId ORDER BY s.id ASC")
+    List<Object[]> findSearchTextAfter(@Param("afterId") Long afterId, Pageable limit);
 }
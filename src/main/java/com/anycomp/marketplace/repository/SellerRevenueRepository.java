@@ -0,0 +1,38 @@
+package com.anycomp.marketplace.repository;
+
+import com.anycomp.marketplace.entity.SellerRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface SellerRevenueRepository extends JpaRepository<SellerRevenue, Long> {
+    
+    
+    // The folded total plus any deltas not folded into it yet
+    @Query("SELECT r.totalRevenue + COALESCE((SELECT SUM(d.amount) FROM PurchaseTotalDelta d " +
+           "WHERE d.sellerId = r.sellerId), 0.0) FROM SellerRevenue r WHERE r.sellerId = :sellerId")
+    Optional<Double> findTotalBySellerId(@Param("sellerId") Long sellerId);
+    
+    
+    // Returns 0 when the seller has no row yet; reads then fall back to SUM and reconciliation creates it
+    @Modifying
+    @Query("UPDATE SellerRevenue r SET r.totalRevenue = r.totalRevenue + :amount WHERE r.sellerId = :sellerId")
+    int addToTotal(@Param("sellerId") Long sellerId, @Param("amount") Double amount);
+    
+    
+    @Modifying
+    @Query("INSERT INTO SellerRevenue (sellerId, totalRevenue) " +
+           "SELECT s.id, 0.0 FROM Seller s " +
+           "WHERE NOT EXISTS (SELECT 1 FROM SellerRevenue r WHERE r.sellerId = s.id)")
+    int insertMissing();
+    
+    
+    @Modifying
+    @Query("UPDATE SellerRevenue r SET r.totalRevenue = " +
+           "(SELECT COALESCE(SUM(p.totalPrice), 0.0) FROM Purchase p JOIN p.item i WHERE i.seller.id = r.sellerId)")
+    int rebuildAll();
+}
@@ -0,0 +1,117 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.BestSeller;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory best-seller ranking. Seeded from one aggregate query at startup and kept
+// current by purchases and cancellations after they commit, so a top-K read walks K
+// entries of an ordered tree instead of grouping the whole purchase history.
+@Component
+public class BestSellerBoard {
+
+    private static final Logger log = LoggerFactory.getLogger(BestSellerBoard.class);
+
+    private static final Comparator<BestSeller> RANKING = Comparator
+            .comparing(BestSeller::totalQuantity, Comparator.reverseOrder())
+            .thenComparing(BestSeller::itemId);
+
+    @Value("${marketplace.leaderboard.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    private final Map<Long, BestSeller> byItem = new HashMap<>();
+    private final TreeSet<BestSeller> ranking = new TreeSet<>(RANKING);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    @PostConstruct
+    void load() {
+        if (!enabled) {
+            return;
+        }
+        List<BestSeller> rows = purchaseRepository.findAllBestSellers();
+        lock.writeLock().lock();
+        try {
+            for (BestSeller row : rows) {
+                byItem.put(row.itemId(), row);
+                ranking.add(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Best-seller board loaded {} items", rows.size());
+    }
+
+
+    // Apply a change in sold quantity (negative for a cancellation) once the transaction commits
+    public void record(Long itemId, String itemName, int quantity) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> adjust(itemId, itemName, quantity));
+        }
+    }
+
+
+    public void rename(Long itemId, String itemName) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> adjust(itemId, itemName, 0));
+        }
+    }
+
+
+    public List<BestSeller> top(int limit) {
+        if (!enabled) {
+            return purchaseRepository.findBestSellers(PageRequest.of(0, limit));
+        }
+        lock.readLock().lock();
+        try {
+            List<BestSeller> top = new ArrayList<>(Math.min(limit, ranking.size()));
+            Iterator<BestSeller> it = ranking.iterator();
+            while (top.size() < limit && it.hasNext()) {
+                top.add(it.next());
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    private void adjust(Long itemId, String itemName, int quantity) {
+        lock.writeLock().lock();
+        try {
+            BestSeller current = byItem.remove(itemId);
+            long total = quantity;
+            if (current != null) {
+                ranking.remove(current);
+                total += current.totalQuantity();
+                itemName = itemName == null ? current.itemName() : itemName;
+            }
+            if (total > 0) {
+                BestSeller updated = new BestSeller(itemId, itemName, total);
+                byItem.put(itemId, updated);
+                ranking.add(updated);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
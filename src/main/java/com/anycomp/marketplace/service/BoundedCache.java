@@ -0,0 +1,224 @@
+package com.anycomp.marketplace.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// Read-through LRU cache with a size bound, a TTL and hit/miss/eviction meters.
+// Keys are spread over independently locked segments so readers rarely contend.
+// Missing values are not cached.
+class BoundedCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final String name;
+    private final long ttlNanos;
+    private final Segment<K, V>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    BoundedCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.segments = new Segment[SEGMENTS];
+        int perSegment = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(perSegment, evictions);
+        }
+    }
+
+
+    void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("marketplace.cache.gets", hits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("marketplace.cache.gets", misses, LongAdder::sum)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("marketplace.cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", name).register(registry);
+        Gauge.builder("marketplace.cache.size", this, BoundedCache::size)
+                .tag("cache", name).register(registry);
+    }
+
+
+    Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        V cached = segment.get(key, System.nanoTime());
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return loadAndCache(segment, key, loader);
+    }
+
+
+    // Like get, but concurrent misses on one key share a single load. Only the caller that
+    // runs the load caches its result, fenced by the generation it read before querying:
+    // a waiter that joined after an invalidation gets the value but must not store it.
+    Optional<V> get(K key, SingleFlight<K, Optional<V>> loads, Function<K, Optional<V>> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        V cached = segment.get(key, System.nanoTime());
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return loads.execute(key, () -> loadAndCache(segment, key, loader));
+    }
+
+
+    private Optional<V> loadAndCache(Segment<K, V> segment, K key, Function<K, Optional<V>> loader) {
+        long generation = segment.generation();
+        long expiresAt = System.nanoTime() + ttlNanos;
+        Optional<V> loaded = loader.apply(key);
+        loaded.ifPresent(value -> segment.putIfUnchanged(key, value, expiresAt, generation));
+        return loaded;
+    }
+
+
+    // Lookup without a loader: counts as a hit or a miss but never goes to the source
+    Optional<V> getIfPresent(K key) {
+        return get(key, k -> Optional.empty());
+    }
+
+
+    void put(K key, V value) {
+        segmentFor(key).put(key, value, System.nanoTime() + ttlNanos);
+    }
+
+
+    void invalidate(K key) {
+        segmentFor(key).remove(key);
+    }
+
+
+    // Rewrites a cached value in place, keeping its expiry. Like invalidate, it stops a load
+    // that raced with the change from caching what it read.
+    void update(K key, UnaryOperator<V> change) {
+        segmentFor(key).update(key, change);
+    }
+
+
+    void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+
+    long missCount() {
+        return misses.sum();
+    }
+
+
+    int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+
+    private static final class Segment<K, V> {
+
+        private final Map<K, Entry<V>> map;
+
+        // Bumped on every invalidation so a load that raced with a write is not cached
+        private long generation;
+
+        Segment(int maxSize, LongAdder evictions) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized V get(K key, long now) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAt >= 0) {
+                map.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        synchronized void putIfUnchanged(K key, V value, long expiresAt, long expectedGeneration) {
+            if (generation == expectedGeneration) {
+                map.put(key, new Entry<>(value, expiresAt));
+            }
+        }
+
+        synchronized void put(K key, V value, long expiresAt) {
+            map.put(key, new Entry<>(value, expiresAt));
+        }
+
+        synchronized void update(K key, UnaryOperator<V> change) {
+            generation++;
+            Entry<V> entry = map.get(key);
+            if (entry != null) {
+                map.put(key, new Entry<>(change.apply(entry.value), entry.expiresAt));
+            }
+        }
+
+        synchronized void remove(K key) {
+            generation++;
+            map.remove(key);
+        }
+
+        synchronized void clear() {
+            generation++;
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
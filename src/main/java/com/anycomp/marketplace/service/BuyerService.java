@@ -1,38 +1,71 @@
 package com.anycomp.marketplace.service;
 
+import com.anycomp.marketplace.dto.Cursor;
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.BuyerSummary;
 import com.anycomp.marketplace.entity.Buyer;
 import com.anycomp.marketplace.repository.BuyerRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Optional;
 
 @Service
 @Transactional
+@Timed("marketplace.service")
 public class BuyerService {
     
     @Autowired
     private BuyerRepository buyerRepository;
     
+    @Autowired
+    private SearchIndex searchIndex;
+    
+    @Autowired
+    private EntityCaches entityCaches;
+    
+    @Autowired
+    private PurchaseTotals purchaseTotals;
+    
+    @Autowired
+    private LiveCounts liveCounts;
+    
     
     public Buyer createBuyer(Buyer buyer) {
         
         if (buyerRepository.existsByEmail(buyer.getEmail())) {
             throw new RuntimeException("Buyer with email " + buyer.getEmail() + " already exists");
         }
-        return buyerRepository.save(buyer);
+        Buyer saved = buyerRepository.save(buyer);
+        purchaseTotals.openBuyer(saved.getId());
+        liveCounts.buyerAdded();
+        searchIndex.indexBuyer(saved.getId(), saved.getName());
+        return saved;
+    }
+    
+    
+    public Page<BuyerSummary> getAllBuyers(Pageable pageable) {
+        return buyerRepository.findAllSummaries(pageable);
     }
     
     
-    public Page<Buyer> getAllBuyers(Pageable pageable) {
-        return buyerRepository.findAll(pageable);
+    public CursorPage<BuyerSummary> getAllBuyersAfter(String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        Long afterId = cursor == null ? 0L : cursor.getId();
+        List<BuyerSummary> rows = buyerRepository.findSummariesAfter(afterId, CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, buyer -> Cursor.encode(buyer.id()));
     }
     
     
-    public Optional<Buyer> getBuyerById(Long id) {
-        return buyerRepository.findById(id);
+    // No transaction here: a cache miss opens one only for the shared load
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<BuyerSummary> getBuyerById(Long id) {
+        return entityCaches.buyer(id);
     }
     
     
@@ -54,7 +87,10 @@ public class BuyerService {
         buyer.setName(buyerDetails.getName());
         buyer.setEmail(buyerDetails.getEmail());
         
-        return buyerRepository.save(buyer);
+        Buyer saved = buyerRepository.save(buyer);
+        entityCaches.evictBuyer(id);
+        searchIndex.indexBuyer(id, saved.getName());
+        return saved;
     }
     
     
@@ -68,20 +104,33 @@ public class BuyerService {
         }
         
         buyerRepository.delete(buyer);
+        purchaseTotals.closeBuyer(id);
+        liveCounts.buyerRemoved();
+        entityCaches.evictBuyer(id);
+        searchIndex.removeBuyer(id);
     }
     
     
-    public Page<Buyer> searchBuyersByName(String name, Pageable pageable) {
-        return buyerRepository.findByNameContainingIgnoreCase(name, pageable);
+    public Page<BuyerSummary> searchBuyersByName(String name, Pageable pageable) {
+        List<Long> ids = searchIndex.searchBuyers(name);
+        if (ids == null) {
+            return buyerRepository.findByNameContainingIgnoreCase(name, pageable);
+        }
+        return SearchIndex.page(ids, pageable, buyerRepository::findSummariesByIdIn, BuyerSummary::id);
     }
     
     
-    public Page<Buyer> getBuyersWithPurchases(Pageable pageable) {
+    public Page<BuyerSummary> getBuyersWithPurchases(Pageable pageable) {
         return buyerRepository.findBuyersWithPurchases(pageable);
     }
     
     
+    // A memory read when live counts are on, so no transaction (and no connection) is needed
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getTotalBuyersCount() {
+        if (liveCounts.isEnabled()) {
+            return liveCounts.buyers();
+        }
         return buyerRepository.countTotalBuyers();
     }
     
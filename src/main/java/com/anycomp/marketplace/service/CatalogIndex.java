@@ -0,0 +1,500 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.ItemFilter;
+import com.anycomp.marketplace.repository.ItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory filter over the item catalog for combined item queries.
+ *
+ * Item ids are kept in compressed bitmaps: one per seller, one of the items in stock and one
+ * per price bucket (a quarter octave wide). Each item's seller, price and quantity sit in an
+ * open-addressing table keyed by id, so memory follows the number of items, not the largest
+ * id. A query intersects the bitmaps of its criteria, then checks exact price bounds and the
+ * quantity cap on what is left. Price order walks the buckets in order and picks the page
+ * out of one bucket at a time. A page costs every candidate in the buckets it touches: each
+ * page re-reads the bucket its cursor is in, so paging deep into one crowded price band
+ * costs that band's size per page, however small the page.
+ *
+ * Loaded at startup and kept current by the services after each commit, like the stock
+ * index. Item ids must fit in an int; a catalog that outgrows that switches the index off
+ * and queries fall back to SQL.
+ */
+@Component
+public class CatalogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndex.class);
+
+    private static final int LOAD_CHUNK = 10_000;
+
+    private static final int BUCKETS_PER_OCTAVE = 4;
+
+    // Bucket 0 holds prices under a cent, the last one everything from 2^40 cents up
+    private static final int PRICE_BUCKETS = 2 + 40 * BUCKETS_PER_OCTAVE;
+
+    private static final double LN_2 = Math.log(2);
+
+    @Value("${marketplace.catalog.index.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final RoaringBitmap inStock = new RoaringBitmap();
+    private final Map<Long, RoaringBitmap> bySeller = new HashMap<>();
+    private final RoaringBitmap[] byPrice = new RoaringBitmap[PRICE_BUCKETS];
+
+    private final Entries entries = new Entries();
+
+    private volatile boolean usable;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    @PostConstruct
+    void load() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+
+    // Reloads the whole index from the database
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            inStock.clear();
+            bySeller.clear();
+            Arrays.fill(byPrice, null);
+            entries.clear();
+            usable = true;
+
+            Long afterId = 0L;
+            List<Object[]> rows;
+            do {
+                rows = itemRepository.findCatalogEntriesAfter(afterId, PageRequest.of(0, LOAD_CHUNK));
+                for (Object[] row : rows) {
+                    afterId = (Long) row[0];
+                    put(afterId, (Long) row[1], (Double) row[2], (Integer) row[3]);
+                }
+            } while (usable && rows.size() == LOAD_CHUNK);
+
+            all.runOptimize();
+            inStock.runOptimize();
+            bySeller.values().forEach(RoaringBitmap::runOptimize);
+            for (RoaringBitmap bucket : byPrice) {
+                if (bucket != null) {
+                    bucket.runOptimize();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Catalog index loaded {} items", all.getCardinality());
+    }
+
+
+    public boolean isEnabled() {
+        return enabled && usable;
+    }
+
+
+    // Adopt an item's seller, price and quantity (create, update, import) once the transaction commits
+    public void track(Long itemId, Long sellerId, Double price, int quantity) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> write(() -> put(itemId, sellerId, price, quantity)));
+        }
+    }
+
+
+    // Apply a stock change (negative for a sale, positive for a cancellation) once the transaction commits
+    public void adjust(Long itemId, int delta) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> write(() -> {
+                if (indexed(itemId)) {
+                    int id = itemId.intValue();
+                    setQuantity(id, entries.quantities[entries.slot(id)] + delta);
+                }
+            }));
+        }
+    }
+
+
+    public void untrack(Long itemId) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> write(() -> {
+                if (indexed(itemId)) {
+                    remove(itemId.intValue());
+                }
+            }));
+        }
+    }
+
+
+    // Up to limit matching items in the filter's order, after the cursor position
+    // (afterPrice is only used for price order), with the price each was indexed at
+    public List<Match> filter(ItemFilter filter, Double afterPrice, Long afterId, int limit) {
+        List<Match> ids = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = candidates(filter);
+            if (filter.byPrice()) {
+                collectByPrice(filter, candidates, afterPrice, afterId, limit, ids);
+            } else {
+                collectById(filter, candidates, afterId, limit, ids);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+
+    static int bucketOf(double price) {
+        if (!(price >= 0.01)) {
+            return 0;
+        }
+        double octaves = Math.log(price * 100) / LN_2;
+        return (int) Math.min(PRICE_BUCKETS - 1, 1 + (long) (octaves * BUCKETS_PER_OCTAVE));
+    }
+
+
+    // Intersection of the seller, stock and price-bucket bitmaps the filter asks for. May be
+    // one of the index's own bitmaps, so callers only read it.
+    private RoaringBitmap candidates(ItemFilter filter) {
+        RoaringBitmap result = all;
+        if (filter.sellerId() != null) {
+            result = bySeller.get(filter.sellerId());
+            if (result == null) {
+                return new RoaringBitmap();
+            }
+        }
+        if (Boolean.TRUE.equals(filter.inStock())) {
+            result = RoaringBitmap.and(result, inStock);
+        } else if (Boolean.FALSE.equals(filter.inStock())) {
+            result = RoaringBitmap.andNot(result, inStock);
+        }
+        // Price order visits only the buckets in range anyway
+        if (!filter.byPrice() && (filter.minPrice() != null || filter.maxPrice() != null)) {
+            RoaringBitmap inRange = new RoaringBitmap();
+            for (int bucket = lowBucket(filter); bucket <= highBucket(filter); bucket++) {
+                if (byPrice[bucket] != null) {
+                    inRange.or(byPrice[bucket]);
+                }
+            }
+            result = RoaringBitmap.and(result, inRange);
+        }
+        return result;
+    }
+
+
+    private void collectById(ItemFilter filter, RoaringBitmap candidates, Long afterId, int limit, List<Match> ids) {
+        long from = afterId == null ? 0 : afterId + 1;
+        if (from > Integer.MAX_VALUE) {
+            return;
+        }
+        PeekableIntIterator iterator = candidates.getIntIterator();
+        iterator.advanceIfNeeded((int) Math.max(0, from));
+        while (iterator.hasNext() && ids.size() < limit) {
+            int id = iterator.next();
+            if (matches(id, filter)) {
+                ids.add(new Match((long) id, price(id)));
+            }
+        }
+    }
+
+
+    private void collectByPrice(ItemFilter filter, RoaringBitmap candidates, Double afterPrice, Long afterId,
+                                int limit, List<Match> ids) {
+        boolean ascending = filter.sort() == ItemFilter.Sort.PRICE_ASC;
+        Comparator<Integer> order = Comparator.<Integer>comparingDouble(this::price)
+                .thenComparingInt(id -> id);
+        if (!ascending) {
+            order = order.reversed();
+        }
+
+        int low = lowBucket(filter);
+        int high = highBucket(filter);
+        if (afterPrice != null) {
+            if (ascending) {
+                low = Math.max(low, bucketOf(afterPrice));
+            } else {
+                high = Math.min(high, bucketOf(afterPrice));
+            }
+        }
+
+        int step = ascending ? 1 : -1;
+        for (int bucket = ascending ? low : high; bucket >= low && bucket <= high && ids.size() < limit; bucket += step) {
+            if (byPrice[bucket] == null) {
+                continue;
+            }
+            // Keep the first `need` items of this bucket in page order; the head is the last of them
+            int need = limit - ids.size();
+            PriorityQueue<Integer> first = new PriorityQueue<>(need + 1, order.reversed());
+            IntIterator iterator = RoaringBitmap.and(candidates, byPrice[bucket]).getIntIterator();
+            while (iterator.hasNext()) {
+                int id = iterator.next();
+                if (matches(id, filter) && isAfter(id, afterPrice, afterId, ascending)) {
+                    first.add(id);
+                    if (first.size() > need) {
+                        first.poll();
+                    }
+                }
+            }
+            List<Integer> page = new ArrayList<>(first);
+            page.sort(order);
+            for (Integer id : page) {
+                ids.add(new Match((long) id, price(id)));
+            }
+        }
+    }
+
+
+    private boolean matches(int id, ItemFilter filter) {
+        int slot = entries.slot(id);
+        double price = entries.prices[slot];
+        return (filter.minPrice() == null || price >= filter.minPrice())
+                && (filter.maxPrice() == null || price <= filter.maxPrice())
+                && (filter.maxQuantity() == null || entries.quantities[slot] <= filter.maxQuantity());
+    }
+
+
+    private double price(int id) {
+        return entries.prices[entries.slot(id)];
+    }
+
+
+    private boolean isAfter(int id, Double afterPrice, Long afterId, boolean ascending) {
+        if (afterPrice == null) {
+            return true;
+        }
+        int compared = Double.compare(price(id), afterPrice);
+        if (compared == 0) {
+            compared = Long.compare(id, afterId == null ? 0 : afterId);
+        }
+        return ascending ? compared > 0 : compared < 0;
+    }
+
+
+    private static int lowBucket(ItemFilter filter) {
+        return filter.minPrice() == null ? 0 : bucketOf(filter.minPrice());
+    }
+
+
+    private static int highBucket(ItemFilter filter) {
+        return filter.maxPrice() == null ? PRICE_BUCKETS - 1 : bucketOf(filter.maxPrice());
+    }
+
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    private boolean indexed(Long itemId) {
+        return itemId != null && itemId <= Integer.MAX_VALUE && all.contains(itemId.intValue());
+    }
+
+
+    // Callers hold the write lock
+    private void put(Long itemId, Long sellerId, Double price, int quantity) {
+        if (!usable) {
+            return;
+        }
+        if (itemId > Integer.MAX_VALUE) {
+            usable = false;
+            log.warn("Item id {} does not fit the catalog index; combined item queries fall back to SQL", itemId);
+            return;
+        }
+        int id = itemId.intValue();
+        if (all.contains(id)) {
+            remove(id);
+        }
+        double listed = price == null ? 0 : price;
+        entries.put(id, sellerId, listed);
+        all.add(id);
+        bySeller.computeIfAbsent(sellerId, key -> new RoaringBitmap()).add(id);
+        int bucket = bucketOf(listed);
+        if (byPrice[bucket] == null) {
+            byPrice[bucket] = new RoaringBitmap();
+        }
+        byPrice[bucket].add(id);
+        setQuantity(id, quantity);
+    }
+
+
+    private void setQuantity(int id, int quantity) {
+        entries.quantities[entries.slot(id)] = quantity;
+        if (quantity > 0) {
+            inStock.add(id);
+        } else {
+            inStock.remove(id);
+        }
+    }
+
+
+    private void remove(int id) {
+        int slot = entries.slot(id);
+        long sellerId = entries.sellers[slot];
+        double price = entries.prices[slot];
+        entries.remove(id);
+        all.remove(id);
+        inStock.remove(id);
+        RoaringBitmap seller = bySeller.get(sellerId);
+        if (seller != null) {
+            seller.remove(id);
+            if (seller.isEmpty()) {
+                bySeller.remove(sellerId);
+            }
+        }
+        RoaringBitmap bucket = byPrice[bucketOf(price)];
+        if (bucket != null) {
+            bucket.remove(id);
+        }
+    }
+
+
+    // A matched item and its position in price order; pages are cut at these, not at the rows
+    // read afterwards, so an item deleted in between cannot end a page early
+    public record Match(Long id, double price) {
+    }
+
+
+    // Seller, price and quantity per indexed id: linear probing over parallel arrays, kept
+    // at most three quarters full, with backward-shift deletion so no tombstones build up.
+    // Guarded by the index lock like the bitmaps.
+    static final class Entries {
+
+        private static final int FREE = -1;
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int[] ids;
+        private long[] sellers;
+        private double[] prices;
+        private int[] quantities;
+        private int size;
+
+        Entries() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        void clear() {
+            allocate(INITIAL_CAPACITY);
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        // Slot of the id, or -1
+        int slot(int id) {
+            int mask = ids.length - 1;
+            for (int i = hash(id) & mask; ; i = (i + 1) & mask) {
+                if (ids[i] == id) {
+                    return i;
+                }
+                if (ids[i] == FREE) {
+                    return -1;
+                }
+            }
+        }
+
+        // Adds the id or replaces its seller and price; the quantity starts at zero for a new id
+        int put(int id, long sellerId, double price) {
+            if ((size + 1) * 4L > ids.length * 3L) {
+                grow();
+            }
+            int mask = ids.length - 1;
+            int i = hash(id) & mask;
+            while (ids[i] != FREE && ids[i] != id) {
+                i = (i + 1) & mask;
+            }
+            if (ids[i] == FREE) {
+                ids[i] = id;
+                quantities[i] = 0;
+                size++;
+            }
+            sellers[i] = sellerId;
+            prices[i] = price;
+            return i;
+        }
+
+        void remove(int id) {
+            int gap = slot(id);
+            if (gap < 0) {
+                return;
+            }
+            size--;
+            int mask = ids.length - 1;
+            for (int j = (gap + 1) & mask; ids[j] != FREE; j = (j + 1) & mask) {
+                // An entry may fill the gap unless its home slot lies between the gap and itself
+                int home = hash(ids[j]) & mask;
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    move(j, gap);
+                    gap = j;
+                }
+            }
+            ids[gap] = FREE;
+        }
+
+        private void move(int from, int to) {
+            ids[to] = ids[from];
+            sellers[to] = sellers[from];
+            prices[to] = prices[from];
+            quantities[to] = quantities[from];
+        }
+
+        private void grow() {
+            int[] oldIds = ids;
+            long[] oldSellers = sellers;
+            double[] oldPrices = prices;
+            int[] oldQuantities = quantities;
+            allocate(oldIds.length * 2);
+            size = 0;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != FREE) {
+                    quantities[put(oldIds[i], oldSellers[i], oldPrices[i])] = oldQuantities[i];
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            ids = new int[capacity];
+            Arrays.fill(ids, FREE);
+            sellers = new long[capacity];
+            prices = new double[capacity];
+            quantities = new int[capacity];
+        }
+
+        private static int hash(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.anycomp.marketplace.service;
+
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Minimal RFC 4180 CSV: comma separated, fields optionally quoted, "" escapes a quote
+// inside quotes, and quoted fields may span lines
+final class CsvRecords {
+
+    private CsvRecords() {}
+
+
+    // Next record's fields, or null at end of input. A record over maxLength characters is
+    // skipped to the end of the line it overflows on.
+    static List<String> read(LineNumberReader reader, int maxLength) throws IOException {
+        String line = readLine(reader, maxLength);
+        if (line == null) {
+            return null;
+        }
+        int remaining = maxLength - line.length();
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                String next = readLine(reader, Math.max(0, remaining - 1));
+                if (next == null) {
+                    throw new IllegalArgumentException("Unterminated quoted field");
+                }
+                remaining -= next.length() + 1;
+                field.append('\n');
+                line = next;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+
+    // Next line without its terminator, or null at end of input. Never buffers more than
+    // maxLength characters: a longer line is read to its end and discarded.
+    static String readLine(LineNumberReader reader, int maxLength) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        // The reader folds \r\n and \r into \n
+        while (c >= 0 && c != '\n') {
+            if (line.length() == maxLength) {
+                while (c >= 0 && c != '\n') {
+                    c = reader.read();
+                }
+                throw new TooLongException("Row is longer than " + maxLength + " characters");
+            }
+            line.append((char) c);
+            c = reader.read();
+        }
+        return line.toString();
+    }
+
+
+    static final class TooLongException extends IllegalArgumentException {
+        TooLongException(String message) {
+            super(message);
+        }
+    }
+
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
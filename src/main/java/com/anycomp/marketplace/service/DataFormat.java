@@ -0,0 +1,35 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+// Line-oriented formats accepted by bulk import and produced by export
+public enum DataFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    DataFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static DataFormat parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Format must be ndjson or csv");
+        }
+    }
+}
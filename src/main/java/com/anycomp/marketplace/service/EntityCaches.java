@@ -0,0 +1,141 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.BuyerSummary;
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.dto.SellerSummary;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Read-through caches for item, seller and buyer lookups by id.
+// They hold the scalar summaries the lookup endpoints serve, never entities, so an entry
+// is a few fields however many purchases hang off the row. Writes that change a row evict
+// it both immediately and after commit; a sale or cancellation instead adjusts the cached
+// item's stock after commit, so the hottest item stays cached through a flash sale.
+// Concurrent misses on one id share a single load, which runs in its own read-only
+// transaction: callers waiting on it or hitting the cache hold no connection.
+@Component
+public class EntityCaches {
+
+    @Value("${marketplace.cache.entity.max-size:10000}")
+    private int maxSize;
+
+    @Value("${marketplace.cache.entity.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${marketplace.singleflight.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BoundedCache<Long, ItemSummary> items;
+    private BoundedCache<Long, SellerSummary> sellers;
+    private BoundedCache<Long, BuyerSummary> buyers;
+    private SingleFlight<Long, Optional<ItemSummary>> itemLoads;
+    private SingleFlight<Long, Optional<SellerSummary>> sellerLoads;
+    private SingleFlight<Long, Optional<BuyerSummary>> buyerLoads;
+    private TransactionTemplate readOnly;
+
+
+    @PostConstruct
+    void init() {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        items = new BoundedCache<>("items", maxSize, ttl);
+        sellers = new BoundedCache<>("sellers", maxSize, ttl);
+        buyers = new BoundedCache<>("buyers", maxSize, ttl);
+        items.bindTo(meterRegistry);
+        sellers.bindTo(meterRegistry);
+        buyers.bindTo(meterRegistry);
+
+        Duration maxWait = Duration.ofMillis(maxWaitMs);
+        itemLoads = new SingleFlight<>("items", maxWait, id -> "id");
+        sellerLoads = new SingleFlight<>("sellers", maxWait, id -> "id");
+        buyerLoads = new SingleFlight<>("buyers", maxWait, id -> "id");
+        itemLoads.bindTo(meterRegistry);
+        sellerLoads.bindTo(meterRegistry);
+        buyerLoads.bindTo(meterRegistry);
+
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+
+    public Optional<ItemSummary> item(Long id) {
+        return items.get(id, itemLoads, key -> load(() -> itemRepository.findSummaryById(key)));
+    }
+
+
+    public Optional<SellerSummary> seller(Long id) {
+        return sellers.get(id, sellerLoads, key -> load(() -> sellerRepository.findSummaryById(key)));
+    }
+
+
+    public Optional<BuyerSummary> buyer(Long id) {
+        return buyers.get(id, buyerLoads, key -> load(() -> buyerRepository.findSummaryById(key)));
+    }
+
+
+    // Apply a committed stock change to the cached item, if it is cached
+    public void adjustItemStock(Long id, int delta) {
+        if (id != null) {
+            TransactionHooks.afterCommit(() -> items.update(id, item -> item.withQuantity(item.quantity() + delta)));
+        }
+    }
+
+
+    public void evictItem(Long id) {
+        evict(items, id);
+    }
+
+
+    public void evictSeller(Long id) {
+        evict(sellers, id);
+    }
+
+
+    public void evictBuyer(Long id) {
+        evict(buyers, id);
+    }
+
+
+    // Always a fresh read-only transaction, never the caller's: the result is shared with
+    // every waiter, and only the loading thread holds a connection
+    private <T> T load(Supplier<T> query) {
+        return readOnly.execute(status -> query.get());
+    }
+
+
+    private static void evict(BoundedCache<Long, ?> cache, Long id) {
+        if (id == null) {
+            return;
+        }
+        cache.invalidate(id);
+        TransactionHooks.onCompletion(committed -> cache.invalidate(id));
+    }
+}
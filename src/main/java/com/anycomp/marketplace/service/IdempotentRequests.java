@@ -0,0 +1,215 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.IdempotencyRecord;
+import com.anycomp.marketplace.exception.InvalidRequestException;
+import com.anycomp.marketplace.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} and replays its response to retries.
+ * Keys are scoped (per buyer for purchases), so two clients picking the same key never see
+ * each other's responses.
+ *
+ * Completed responses are kept in a bounded in-memory cache, so a retry is answered without
+ * touching the database, and in {@code idempotency_keys}, so a retry after a restart (or a
+ * cache eviction) is still answered from the first attempt. A retry that arrives while the
+ * first attempt is running waits for it instead of running the request again. Server errors
+ * are not stored: the next retry runs the request.
+ *
+ * The record is written right after the request completes rather than in its transaction,
+ * so a crash in between can still let one retry through. It is only ever inserted: when
+ * another instance stored the key first, its record stays and this one is dropped.
+ */
+@Component
+public class IdempotentRequests {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotentRequests.class);
+
+    @Value("${marketplace.idempotency.max-size:100000}")
+    private int maxSize;
+
+    @Value("${marketplace.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${marketplace.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BoundedCache<ScopedKey, Completed> completed;
+
+    // First attempt per key still running; completes with null when its response is not replayable
+    private final Map<ScopedKey, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+
+
+    @PostConstruct
+    void init() {
+        completed = new BoundedCache<>("idempotency", maxSize, Duration.ofHours(ttlHours));
+        completed.bindTo(meterRegistry);
+    }
+
+
+    // The fingerprint identifies the request body; reusing a key for a different request is rejected
+    public ResponseEntity<?> execute(String scope, String idempotencyKey, String fingerprint,
+                                     Supplier<ResponseEntity<?>> action) throws InterruptedException {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            throw new InvalidRequestException(
+                    "Idempotency-Key must be 1 to " + IdempotencyRecord.MAX_KEY_LENGTH + " characters");
+        }
+        if (scope.length() > IdempotencyRecord.MAX_SCOPE_LENGTH) {
+            throw new InvalidRequestException("Idempotency scope is too long");
+        }
+        ScopedKey key = new ScopedKey(scope, idempotencyKey);
+
+        while (true) {
+            Optional<Completed> done = completed.get(key, this::loadPersisted);
+            if (done.isPresent()) {
+                return replay(done.get(), fingerprint);
+            }
+
+            CompletableFuture<Completed> attempt = new CompletableFuture<>();
+            CompletableFuture<Completed> running = inFlight.putIfAbsent(key, attempt);
+            if (running != null) {
+                Completed first;
+                try {
+                    first = running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1")
+                            .body(Map.of("success", false,
+                                    "message", "The original request with this Idempotency-Key is still in progress"));
+                } catch (ExecutionException e) {
+                    first = null;
+                }
+                if (first != null) {
+                    return replay(first, fingerprint);
+                }
+                continue;
+            }
+
+            try {
+                // A first attempt that finished just before we registered has cached its response
+                done = completed.getIfPresent(key);
+                if (done.isPresent()) {
+                    attempt.complete(done.get());
+                    return replay(done.get(), fingerprint);
+                }
+                ResponseEntity<?> response = action.get();
+                attempt.complete(remember(key, fingerprint, response));
+                return response;
+            } catch (RuntimeException e) {
+                attempt.complete(null);
+                throw e;
+            } finally {
+                inFlight.remove(key, attempt);
+            }
+        }
+    }
+
+
+    @Scheduled(fixedDelayString = "${marketplace.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(ttlHours);
+        Integer purged = new TransactionTemplate(transactionManager).execute(status ->
+                idempotencyRecordRepository.deleteCreatedBefore(cutoff));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+
+    private Completed remember(ScopedKey key, String fingerprint, ResponseEntity<?> response) {
+        if (response.getStatusCode().is5xxServerError()) {
+            return null;
+        }
+        String body;
+        try {
+            body = response.getBody() == null ? "" : objectMapper.writeValueAsString(response.getBody());
+        } catch (JsonProcessingException e) {
+            log.warn("Response for idempotency key {} is not serializable, it will not be replayed", key, e);
+            return null;
+        }
+        Completed done = new Completed(fingerprint, response.getStatusCode().value(), body);
+        completed.put(key, done);
+
+        if (body.length() <= IdempotencyRecord.MAX_BODY_LENGTH) {
+            try {
+                idempotencyRecordRepository.save(
+                        new IdempotencyRecord(key.scope(), key.key(), fingerprint, done.status(), body));
+            } catch (DataAccessException e) {
+                // Another instance inserted this key first (its record wins), or the database is
+                // unavailable; memory still covers retries here
+                log.warn("Could not persist idempotency key {}: {}", key, e.getMessage());
+            }
+        }
+        return done;
+    }
+
+
+    private Optional<Completed> loadPersisted(ScopedKey key) {
+        return idempotencyRecordRepository.findById(new IdempotencyRecord.RecordId(key.scope(), key.key()))
+                .filter(record -> record.getCreatedAt().isAfter(LocalDateTime.now().minusHours(ttlHours)))
+                .map(record -> new Completed(record.getFingerprint(), record.getStatus(), record.getBody()));
+    }
+
+
+    private static ResponseEntity<?> replay(Completed done, String fingerprint) {
+        if (!done.fingerprint().equals(fingerprint)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("success", false,
+                            "message", "Idempotency-Key was already used with a different request"));
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(done.status()).header(REPLAYED_HEADER, "true");
+        if (done.body().isEmpty()) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(done.body().getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private record ScopedKey(String scope, String key) {
+    }
+
+
+    private record Completed(String fingerprint, int status, String body) {
+    }
+}
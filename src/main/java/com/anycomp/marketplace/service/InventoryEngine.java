@@ -0,0 +1,337 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.repository.ItemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional in-memory stock engine for flash sales.
+ *
+ * When enabled, purchases are admitted against striped in-memory counters instead of
+ * a row lock on {@code items}, and the consumed quantities are written back to
+ * {@code Item.quantity} in periodic batches. The engine assumes it is the only writer
+ * of stock, so it must only be enabled on a single application instance.
+ */
+@Component
+public class InventoryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryEngine.class);
+
+    @Value("${marketplace.inventory.engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${marketplace.inventory.engine.stripes:8}")
+    private int stripes;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<Long, StripedStock> stock = new ConcurrentHashMap<>();
+
+    // Items that may have unflushed consumption; each item's counter guards the quantity itself
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    // One flush at a time
+    private final Lock flushLock = new ReentrantLock();
+
+
+    @PostConstruct
+    void load() {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> levels = itemRepository.findAllStockLevels();
+        for (Object[] level : levels) {
+            stock.put((Long) level[0], new StripedStock(stripes, (Integer) level[1]));
+        }
+        log.info("Inventory engine loaded stock for {} items", levels.size());
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    // Available quantity, or null when the item does not exist
+    public Integer getAvailable(Long itemId) {
+        StripedStock counter = counter(itemId);
+        return counter == null ? null : counter.sum();
+    }
+
+
+    // Take stock for a purchase; it is handed back if the surrounding transaction rolls back
+    public boolean reserve(Long itemId, int quantity) {
+        StripedStock counter = counter(itemId);
+        if (counter == null || !counter.tryAcquire(quantity)) {
+            return false;
+        }
+        TransactionHooks.onCompletion(committed -> {
+            if (committed) {
+                counter.consumed(quantity);
+                dirty.add(itemId);
+            } else {
+                counter.release(quantity);
+            }
+        });
+        return true;
+    }
+
+
+    // Give stock back once the surrounding transaction commits (cancelled purchase)
+    public void restock(Long itemId, int quantity) {
+        TransactionHooks.onCompletion(committed -> {
+            if (!committed) {
+                return;
+            }
+            StripedStock counter = counter(itemId);
+            if (counter != null) {
+                counter.restocked(quantity);
+                dirty.add(itemId);
+            }
+        });
+    }
+
+
+    // Adopt an absolute quantity written directly to the items table (create/update). Must be
+    // called before the write reaches the database: the item's write-back lock is held until
+    // the transaction completes, so a flush can neither take consumption the new quantity
+    // supersedes nor write it back on top of that quantity.
+    public void track(Long itemId, int quantity) {
+        if (!enabled) {
+            return;
+        }
+        // Without a counter there is nothing unflushed to race; every item is loaded at
+        // startup and created items are tracked here
+        StripedStock current = stock.get(itemId);
+        if (current != null) {
+            current.writeBack.lock();
+        }
+        TransactionHooks.onCompletion(committed -> {
+            try {
+                if (!committed) {
+                    return;
+                }
+                stock.compute(itemId, (id, counter) -> {
+                    if (counter == null) {
+                        return new StripedStock(stripes, quantity);
+                    }
+                    counter.set(quantity);
+                    return counter;
+                });
+            } finally {
+                if (current != null) {
+                    current.writeBack.unlock();
+                }
+            }
+        });
+    }
+
+
+    public void untrack(Long itemId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.onCompletion(committed -> {
+            if (committed) {
+                stock.remove(itemId);
+            }
+        });
+    }
+
+
+    @Scheduled(fixedDelayString = "${marketplace.inventory.engine.flush-interval-ms:500}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        Map<Long, Integer> batch = new HashMap<>();
+        Map<Long, StripedStock> counters = new HashMap<>();
+        try {
+            List<Long> busy = new ArrayList<>();
+            for (Long itemId : dirty) {
+                dirty.remove(itemId);
+                StripedStock counter = stock.get(itemId);
+                if (counter == null) {
+                    continue;
+                }
+                // An absolute write of this item is in flight; its consumption waits for the next flush
+                if (!counter.writeBack.tryLock()) {
+                    busy.add(itemId);
+                    continue;
+                }
+                int consumed = counter.takeUnflushed();
+                if (consumed == 0) {
+                    counter.writeBack.unlock();
+                    continue;
+                }
+                batch.put(itemId, consumed);
+                counters.put(itemId, counter);
+            }
+            dirty.addAll(busy);
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                        batch.forEach(itemRepository::consumeStock));
+            } catch (RuntimeException e) {
+                log.warn("Inventory flush of {} items failed, will retry: {}", batch.size(), e.getMessage());
+                batch.forEach((itemId, consumed) -> {
+                    counters.get(itemId).consumed(consumed);
+                    dirty.add(itemId);
+                });
+            }
+        } finally {
+            counters.values().forEach(counter -> counter.writeBack.unlock());
+            flushLock.unlock();
+        }
+    }
+
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+
+    private StripedStock counter(Long itemId) {
+        StripedStock counter = stock.get(itemId);
+        if (counter != null || !enabled) {
+            return counter;
+        }
+        // Items created outside this instance are picked up on first use
+        return itemRepository.findQuantityById(itemId)
+                .map(quantity -> stock.computeIfAbsent(itemId, id -> new StripedStock(stripes, quantity)))
+                .orElse(null);
+    }
+
+
+    /**
+     * Stock of one item split over several cells so concurrent buyers CAS different
+     * cache lines. A purchase that no single cell can cover drains all cells under
+     * the counter's monitor. The monitor also guards the unflushed quantity and every
+     * change that is not a plain acquire, so adopting an absolute quantity can neither
+     * lose a concurrent release nor race a flush taking the unflushed quantity.
+     */
+    static final class StripedStock {
+
+        // Spread cells 16 ints apart so neighbouring stripes do not share a cache line
+        private static final int PAD = 16;
+
+        private final int stripes;
+        private final AtomicIntegerArray cells;
+
+        // Committed consumption not yet written to the items table
+        private int unflushed;
+
+        // Held by a flush from taking the unflushed quantity until it is written back, and by
+        // an absolute write of the item until its transaction completes
+        final Lock writeBack = new ReentrantLock();
+
+        StripedStock(int stripes, int quantity) {
+            this.stripes = Math.max(1, stripes);
+            this.cells = new AtomicIntegerArray(this.stripes * PAD);
+            spread(quantity);
+        }
+
+        boolean tryAcquire(int quantity) {
+            int home = home();
+            for (int k = 0; k < stripes; k++) {
+                int index = ((home + k) % stripes) * PAD;
+                int current = cells.get(index);
+                while (current >= quantity) {
+                    if (cells.compareAndSet(index, current, current - quantity)) {
+                        return true;
+                    }
+                    current = cells.get(index);
+                }
+            }
+            return acquireAcrossStripes(quantity);
+        }
+
+        // Hands back stock whose purchase rolled back
+        synchronized void release(int quantity) {
+            cells.addAndGet(home() * PAD, quantity);
+        }
+
+        synchronized void consumed(int quantity) {
+            unflushed += quantity;
+        }
+
+        // Hands back stock of a cancelled purchase whose consumption may not be flushed yet
+        synchronized void restocked(int quantity) {
+            cells.addAndGet(home() * PAD, quantity);
+            unflushed -= quantity;
+        }
+
+        // Adopts an absolute quantity just written to the items table, which supersedes
+        // anything not yet flushed
+        synchronized void set(int quantity) {
+            for (int i = 0; i < stripes; i++) {
+                cells.set(i * PAD, 0);
+            }
+            spread(quantity);
+            unflushed = 0;
+        }
+
+        synchronized int takeUnflushed() {
+            int taken = unflushed;
+            unflushed = 0;
+            return taken;
+        }
+
+        int sum() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.get(i * PAD);
+            }
+            return total;
+        }
+
+        private synchronized boolean acquireAcrossStripes(int quantity) {
+            int drained = 0;
+            for (int i = 0; i < stripes; i++) {
+                drained += cells.getAndSet(i * PAD, 0);
+            }
+            boolean acquired = drained >= quantity;
+            spread(acquired ? drained - quantity : drained);
+            return acquired;
+        }
+
+        private void spread(int quantity) {
+            int share = quantity / stripes;
+            int remainder = quantity % stripes;
+            for (int i = 0; i < stripes; i++) {
+                cells.addAndGet(i * PAD, share + (i < remainder ? 1 : 0));
+            }
+        }
+
+        private int home() {
+            long id = Thread.currentThread().getId();
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % stripes;
+        }
+    }
+}
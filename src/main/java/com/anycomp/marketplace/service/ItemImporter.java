@@ -0,0 +1,316 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.ItemImportReport;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.exception.InvalidRequestException;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Streams a seller's catalog file into items. Rows are parsed one at a time, validated
+// against the Item constraints and inserted in chunks, each in its own transaction with
+// JDBC-batched inserts and a cleared persistence context, so memory stays bounded.
+// A chunk the database rejects is retried row by row, so one bad row costs only itself.
+@Service
+public class ItemImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemImporter.class);
+
+    static final int CHUNK_SIZE = 1_000;
+    static final int MAX_REPORTED_ERRORS = 1_000;
+    // A valid row is well under this; a longer one is rejected without being buffered whole
+    static final int MAX_ROW_LENGTH = 16 * 1024;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private StockIndex stockIndex;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private LiveCounts liveCounts;
+    
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    public ItemImportReport importItems(Long sellerId, DataFormat format, InputStream input) throws IOException {
+        if (!sellerRepository.existsById(sellerId)) {
+            throw new RuntimeException("Seller not found with id: " + sellerId);
+        }
+        Progress progress = new Progress();
+        LineNumberReader reader = new LineNumberReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        if (format == DataFormat.CSV) {
+            readCsv(reader, progress, sellerId);
+        } else {
+            readNdjson(reader, progress, sellerId);
+        }
+        insert(sellerId, progress);
+        return new ItemImportReport(progress.imported, progress.failed, progress.errors,
+                progress.failed > progress.errors.size());
+    }
+
+
+    private void readCsv(LineNumberReader reader, Progress progress, Long sellerId) throws IOException {
+        List<String> header;
+        try {
+            header = CsvRecords.read(reader, MAX_ROW_LENGTH);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid CSV header: " + e.getMessage());
+        }
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "price", "quantity")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidRequestException("CSV header must include name, price and quantity");
+            }
+        }
+
+        List<String> fields;
+        while (true) {
+            // A quoted field may span lines, so number rows by where they start
+            long line = reader.getLineNumber() + 1;
+            try {
+                fields = CsvRecords.read(reader, MAX_ROW_LENGTH);
+            } catch (CsvRecords.TooLongException e) {
+                progress.reject(line, e.getMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                progress.reject(line, e.getMessage());
+                break;
+            }
+            if (fields == null) {
+                break;
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                Item item = new Item(
+                        field(fields, columns.get("name")),
+                        field(fields, columns.get("description")),
+                        parseDouble(field(fields, columns.get("price")), "price"),
+                        parseInteger(field(fields, columns.get("quantity")), "quantity"),
+                        null);
+                accept(item, line, progress, sellerId);
+            } catch (IllegalArgumentException e) {
+                progress.reject(line, e.getMessage());
+            }
+        }
+    }
+
+
+    private void readNdjson(LineNumberReader reader, Progress progress, Long sellerId) throws IOException {
+        long line = 0;
+        while (true) {
+            line++;
+            String text;
+            try {
+                text = CsvRecords.readLine(reader, MAX_ROW_LENGTH);
+            } catch (CsvRecords.TooLongException e) {
+                progress.reject(line, e.getMessage());
+                continue;
+            }
+            if (text == null) {
+                break;
+            }
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                if (!node.isObject()) {
+                    throw new IllegalArgumentException("Line is not a JSON object");
+                }
+                Item item = new Item(
+                        text(node, "name"),
+                        text(node, "description"),
+                        parseDouble(text(node, "price"), "price"),
+                        parseInteger(text(node, "quantity"), "quantity"),
+                        null);
+                accept(item, line, progress, sellerId);
+            } catch (JsonProcessingException e) {
+                progress.reject(line, "Malformed JSON: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                progress.reject(line, e.getMessage());
+            }
+        }
+    }
+
+
+    private void accept(Item item, long line, Progress progress, Long sellerId) {
+        Set<ConstraintViolation<Item>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            progress.reject(line, violations.iterator().next().getMessage());
+            return;
+        }
+        progress.chunk.add(item);
+        progress.chunkLines.add(line);
+        if (progress.chunk.size() == CHUNK_SIZE) {
+            insert(sellerId, progress);
+        }
+    }
+
+
+    private void insert(Long sellerId, Progress progress) {
+        List<Item> chunk = progress.chunk;
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            save(chunk, sellerId);
+            progress.imported += chunk.size();
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            log.warn("Import chunk for seller {} failed, retrying its {} rows one at a time", sellerId, chunk.size(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                Item item = chunk.get(i);
+                // The rolled back insert left a generated id behind
+                item.setId(null);
+                try {
+                    save(List.of(item), sellerId);
+                    progress.imported++;
+                } catch (DataAccessException | PersistenceException | TransactionException rowFailure) {
+                    log.debug("Import row {} for seller {} failed", progress.chunkLines.get(i), sellerId, rowFailure);
+                    progress.reject(progress.chunkLines.get(i), "Row could not be saved");
+                }
+            }
+        }
+        chunk.clear();
+        progress.chunkLines.clear();
+    }
+
+
+    private void save(List<Item> items, Long sellerId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Seller seller = sellerRepository.getReferenceById(sellerId);
+            for (Item item : items) {
+                item.setSeller(seller);
+            }
+            itemRepository.saveAll(items);
+            entityManager.flush();
+            liveCounts.itemsAdded(items.size());
+            for (Item item : items) {
+                inventoryEngine.track(item.getId(), item.getQuantity());
+                stockIndex.track(item.getId(), sellerId, item.getQuantity());
+                catalogIndex.track(item.getId(), sellerId, item.getPrice(), item.getQuantity());
+                searchIndex.indexItem(item.getId(), item.getName(), item.getDescription());
+            }
+            entityManager.clear();
+        });
+    }
+
+
+    private static String field(List<String> fields, Integer column) {
+        if (column == null || column >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+
+    private static String text(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+
+    private static Double parseDouble(String value, String name) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            double parsed = Double.parseDouble(value);
+            if (!Double.isFinite(parsed)) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+
+    private static Integer parseInteger(String value, String name) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+
+    private static final class Progress {
+        private long imported;
+        private long failed;
+        private final List<ItemImportReport.RowError> errors = new ArrayList<>();
+        // Validated rows waiting for the next insert, with the line each starts on
+        private final List<Item> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<Long> chunkLines = new ArrayList<>(CHUNK_SIZE);
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ItemImportReport.RowError(line, message));
+            }
+        }
+    }
+}
@@ -1,18 +1,34 @@
 package com.anycomp.marketplace.service;
 
+import com.anycomp.marketplace.dto.Cursor;
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.ItemFilter;
+import com.anycomp.marketplace.dto.ItemSummary;
 import com.anycomp.marketplace.entity.Item;
 import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.exception.InvalidRequestException;
 import com.anycomp.marketplace.repository.ItemRepository;
 import com.anycomp.marketplace.repository.SellerRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @Transactional
+@Timed("marketplace.service")
 public class ItemService {
     
     @Autowired
@@ -21,27 +37,105 @@ public class ItemService {
     @Autowired
     private SellerRepository sellerRepository;
     
+    @Autowired
+    private InventoryEngine inventoryEngine;
+    
+    @Autowired
+    private SearchIndex searchIndex;
+    
+    @Autowired
+    private EntityCaches entityCaches;
+    
+    @Autowired
+    private BestSellerBoard bestSellerBoard;
+    
+    @Autowired
+    private StockIndex stockIndex;
+    
+    @Autowired
+    private LiveCounts liveCounts;
+    
+    @Autowired
+    private CatalogIndex catalogIndex;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${marketplace.singleflight.max-wait-ms:2000}")
+    private long maxWaitMs;
+    
+    private SingleFlight<String, Long> counts;
+    
+    
+    @PostConstruct
+    void init() {
+        counts = new SingleFlight<>("item-counts", Duration.ofMillis(maxWaitMs), key -> key);
+        counts.bindTo(meterRegistry);
+    }
+    
     // Create a new item
     public Item createItem(Item item, Long sellerId) {
         Seller seller = sellerRepository.findById(sellerId)
                 .orElseThrow(() -> new RuntimeException("Seller not found with id: " + sellerId));
         
         item.setSeller(seller);
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        liveCounts.itemsAdded(1);
+        inventoryEngine.track(saved.getId(), saved.getQuantity());
+        stockIndex.track(saved.getId(), sellerId, saved.getQuantity());
+        catalogIndex.track(saved.getId(), sellerId, saved.getPrice(), saved.getQuantity());
+        searchIndex.indexItem(saved.getId(), saved.getName(), saved.getDescription());
+        return saved;
     }
     
     // Get all items with pagination
-    public Page<Item> getAllItems(Pageable pageable) {
-        return itemRepository.findAll(pageable);
+    public Page<ItemSummary> getAllItems(Pageable pageable) {
+        return itemRepository.findAllSummaries(pageable);
     }
     
-    // Get item by ID
-    public Optional<Item> getItemById(Long id) {
-        return itemRepository.findById(id);
+    // Get items after a keyset cursor
+    public CursorPage<ItemSummary> getItemsAfter(String after, int size) {
+        List<ItemSummary> rows = itemRepository.findSummariesAfter(afterId(after), CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, item -> Cursor.encode(item.id()));
+    }
+    
+    // Get items by seller ID after a keyset cursor
+    public CursorPage<ItemSummary> getItemsBySellerIdAfter(Long sellerId, String after, int size) {
+        List<ItemSummary> rows = itemRepository.findSummariesBySellerIdAfter(sellerId, afterId(after), CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, item -> Cursor.encode(item.id()));
+    }
+    
+    // Get item by ID (no transaction here: a cache miss opens one only for the shared load)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ItemSummary> getItemById(Long id) {
+        return entityCaches.item(id);
+    }
+    
+    // Combined filter with keyset pagination; price order pages on (price, id)
+    public CursorPage<ItemSummary> filterItems(ItemFilter filter, String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        Long afterId = cursor == null ? 0L : cursor.getId();
+        Double afterPrice = cursor == null || !filter.byPrice() ? null : priceOf(cursor, after);
+        Pageable limit = CursorPage.fetchLimit(size);
+        
+        if (catalogIndex.isEnabled()) {
+            return fromIndex(catalogIndex.filter(filter, afterPrice, afterId, limit.getPageSize()), filter, size);
+        }
+        List<ItemSummary> rows = switch (filter.sort()) {
+            case ID -> itemRepository.filterAfterId(filter.sellerId(), filter.inStock(), filter.minPrice(),
+                    filter.maxPrice(), filter.maxQuantity(), afterId, limit);
+            case PRICE_ASC -> itemRepository.filterByPriceAsc(filter.sellerId(), filter.inStock(),
+                    filter.minPrice(), filter.maxPrice(), filter.maxQuantity(), afterPrice, afterId, limit);
+            case PRICE_DESC -> itemRepository.filterByPriceDesc(filter.sellerId(), filter.inStock(),
+                    filter.minPrice(), filter.maxPrice(), filter.maxQuantity(), afterPrice, afterId, limit);
+        };
+        return CursorPage.of(rows, size, row -> filter.byPrice()
+                ? Cursor.encode(row.price(), row.id())
+                : Cursor.encode(row.id()));
     }
     
     // Get items by seller ID
-    public Page<Item> getItemsBySellerId(Long sellerId, Pageable pageable) {
+    public Page<ItemSummary> getItemsBySellerId(Long sellerId, Pageable pageable) {
         return itemRepository.findBySellerId(sellerId, pageable);
     }
     
@@ -55,7 +149,14 @@ public class ItemService {
         item.setPrice(itemDetails.getPrice());
         item.setQuantity(itemDetails.getQuantity());
         
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        evict(saved);
+        inventoryEngine.track(id, saved.getQuantity());
+        stockIndex.track(id, saved.getSeller().getId(), saved.getQuantity());
+        catalogIndex.track(id, saved.getSeller().getId(), saved.getPrice(), saved.getQuantity());
+        searchIndex.indexItem(id, saved.getName(), saved.getDescription());
+        bestSellerBoard.rename(id, saved.getName());
+        return saved;
     }
     
     
@@ -69,40 +170,64 @@ public class ItemService {
         }
         
         itemRepository.delete(item);
+        evict(item);
+        liveCounts.itemRemoved();
+        inventoryEngine.untrack(id);
+        stockIndex.untrack(id);
+        catalogIndex.untrack(id);
+        searchIndex.removeItem(id);
     }
     
     
-    public Page<Item> searchItemsByName(String name, Pageable pageable) {
-        return itemRepository.findByNameContainingIgnoreCase(name, pageable);
+    public Page<ItemSummary> searchItemsByName(String name, Pageable pageable) {
+        return searchItems(name, false, pageable);
     }
     
     
-    public Page<Item> getItemsByPriceRange(Double minPrice, Double maxPrice, Pageable pageable) {
+    // Resolve matching ids from the search index, then load only the requested page
+    public Page<ItemSummary> searchItems(String text, boolean includeDescription, Pageable pageable) {
+        List<Long> ids = searchIndex.searchItems(text, includeDescription);
+        if (ids == null) {
+            return includeDescription
+                    ? itemRepository.findByNameOrDescriptionContainingIgnoreCase(text, pageable)
+                    : itemRepository.findByNameContainingIgnoreCase(text, pageable);
+        }
+        return SearchIndex.page(ids, pageable, itemRepository::findSummariesByIdIn, ItemSummary::id);
+    }
+    
+    
+    public Page<ItemSummary> getItemsByPriceRange(Double minPrice, Double maxPrice, Pageable pageable) {
         return itemRepository.findByPriceBetween(minPrice, maxPrice, pageable);
     }
     
     
-    public Page<Item> getAvailableItems(Pageable pageable) {
+    public Page<ItemSummary> getAvailableItems(Pageable pageable) {
         return itemRepository.findAvailableItems(pageable);
     }
     
     
-    public Page<Item> getLowStockItems(Integer threshold, Pageable pageable) {
-        return itemRepository.findLowStockItems(threshold, pageable);
+    // Items at or below the threshold, optionally for one seller; lowest stock first when served from the stock index
+    public Page<ItemSummary> getLowStockItems(Integer threshold, Long sellerId, Pageable pageable) {
+        if (stockIndex.isEnabled()) {
+            return stockIndex.lowStock(threshold, sellerId, pageable);
+        }
+        return sellerId == null
+                ? itemRepository.findLowStockItems(threshold, pageable)
+                : itemRepository.findLowStockItemsBySellerId(threshold, sellerId, pageable);
     }
     
     
-    public Page<Item> getAvailableItemsBySellerId(Long sellerId, Pageable pageable) {
+    public Page<ItemSummary> getAvailableItemsBySellerId(Long sellerId, Pageable pageable) {
         return itemRepository.findAvailableItemsBySellerId(sellerId, pageable);
     }
     
     
-    public Page<Item> getItemsByPriceAsc(Pageable pageable) {
+    public Page<ItemSummary> getItemsByPriceAsc(Pageable pageable) {
         return itemRepository.findAllByOrderByPriceAsc(pageable);
     }
     
     
-    public Page<Item> getItemsByPriceDesc(Pageable pageable) {
+    public Page<ItemSummary> getItemsByPriceDesc(Pageable pageable) {
         return itemRepository.findAllByOrderByPriceDesc(pageable);
     }
     
@@ -112,31 +237,100 @@ public class ItemService {
                 .orElseThrow(() -> new RuntimeException("Item not found with id: " + id));
         
         item.setQuantity(newQuantity);
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        evict(saved);
+        inventoryEngine.track(id, newQuantity);
+        stockIndex.track(id, saved.getSeller().getId(), newQuantity);
+        catalogIndex.track(id, saved.getSeller().getId(), saved.getPrice(), newQuantity);
+        return saved;
     }
     
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isItemAvailable(Long itemId, Integer requestedQuantity) {
-        Optional<Item> itemOpt = itemRepository.findById(itemId);
+        if (inventoryEngine.isEnabled()) {
+            Integer available = inventoryEngine.getAvailable(itemId);
+            return available != null && available >= requestedQuantity;
+        }
+        
+        Optional<ItemSummary> itemOpt = entityCaches.item(itemId);
         if (itemOpt.isEmpty()) {
             return false;
         }
-        Item item = itemOpt.get();
-        return item.getQuantity() >= requestedQuantity;
+        return itemOpt.get().quantity() >= requestedQuantity;
     }
     
     
+    // Memory reads when live counts are on; otherwise the database count is shared by
+    // concurrent callers, who therefore wait without a transaction
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getTotalItemsCount() {
-        return itemRepository.countTotalItems();
+        if (liveCounts.isEnabled()) {
+            return liveCounts.items();
+        }
+        return counts.execute("total", itemRepository::countTotalItems);
     }
     
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getAvailableItemsCount() {
-        return itemRepository.countAvailableItems();
+        if (liveCounts.isEnabled() && stockIndex.isEnabled()) {
+            return liveCounts.inStock();
+        }
+        return counts.execute("available", itemRepository::countAvailableItems);
     }
     
     
     public boolean itemExists(Long id) {
         return itemRepository.existsById(id);
     }
-}
\ No newline at end of file
+    
+    
+    private void evict(Item item) {
+        entityCaches.evictItem(item.getId());
+    }
+    
+    
+    // The page and its cursor come from the index matches; rows deleted since they were
+    // matched are skipped, leaving the page short rather than ending the listing early
+    private CursorPage<ItemSummary> fromIndex(List<CatalogIndex.Match> matches, ItemFilter filter, int size) {
+        int pageSize = CursorPage.clampSize(size);
+        boolean hasNext = matches.size() > pageSize;
+        List<CatalogIndex.Match> page = hasNext ? matches.subList(0, pageSize) : matches;
+        if (page.isEmpty()) {
+            return CursorPage.of(List.of(), false, null);
+        }
+        
+        List<Long> ids = page.stream().map(CatalogIndex.Match::id).toList();
+        Map<Long, ItemSummary> rows = new HashMap<>();
+        for (ItemSummary row : itemRepository.findSummariesByIdIn(ids)) {
+            rows.put(row.id(), row);
+        }
+        List<ItemSummary> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ItemSummary row = rows.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        CatalogIndex.Match last = page.get(page.size() - 1);
+        String nextCursor = filter.byPrice() ? Cursor.encode(last.price(), last.id()) : Cursor.encode(last.id());
+        return CursorPage.of(ordered, hasNext, nextCursor);
+    }
+    
+    
+    // A cursor from an id-ordered page has no price to resume from
+    private static Double priceOf(Cursor cursor, String after) {
+        try {
+            return Double.valueOf(cursor.getKey());
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid cursor for price order: " + after);
+        }
+    }
+    
+    
+    private Long afterId(String after) {
+        Cursor cursor = Cursor.decode(after);
+        return cursor == null ? 0L : cursor.getId();
+    }
+}
@@ -0,0 +1,178 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Running counts of items, purchases, sellers and buyers, so the count endpoints are
+ * memory reads instead of a {@code COUNT(*)} over the whole table.
+ *
+ * Counts are seeded from the database at startup and moved by the services' create,
+ * delete, buy and cancel paths once their transaction commits. A periodic reconciliation
+ * recounts the tables and corrects any drift, which covers rows written outside the
+ * services. A write that commits while the recount runs can leave the count off by that
+ * write until the next reconciliation.
+ *
+ * The number of items in stock moves when {@link StockIndex}, which already sees every
+ * quantity change, sees an item go in or out of stock, and is recounted with the rest.
+ */
+@Component
+public class LiveCounts {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveCounts.class);
+
+    @Value("${marketplace.counts.live.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    private final LongAdder items = new LongAdder();
+    private final LongAdder purchases = new LongAdder();
+    private final LongAdder sellers = new LongAdder();
+    private final LongAdder buyers = new LongAdder();
+    private final LongAdder inStock = new LongAdder();
+
+
+    @PostConstruct
+    void seed() {
+        if (!enabled) {
+            return;
+        }
+        reconcile();
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    public void itemsAdded(int count) {
+        change(items, count);
+    }
+
+
+    public void itemRemoved() {
+        change(items, -1);
+    }
+
+
+    public void purchasesAdded(int count) {
+        change(purchases, count);
+    }
+
+
+    public void purchaseRemoved() {
+        change(purchases, -1);
+    }
+
+
+    public void sellerAdded() {
+        change(sellers, 1);
+    }
+
+
+    public void sellerRemoved() {
+        change(sellers, -1);
+    }
+
+
+    public void buyerAdded() {
+        change(buyers, 1);
+    }
+
+
+    public void buyerRemoved() {
+        change(buyers, -1);
+    }
+
+
+    // Called by the stock index, which already runs after the commit
+    void inStockChanged(int delta) {
+        if (enabled && delta != 0) {
+            inStock.add(delta);
+        }
+    }
+
+
+    public long items() {
+        return items.sum();
+    }
+
+
+    public long purchases() {
+        return purchases.sum();
+    }
+
+
+    public long sellers() {
+        return sellers.sum();
+    }
+
+
+    public long buyers() {
+        return buyers.sum();
+    }
+
+
+    public long inStock() {
+        return inStock.sum();
+    }
+
+
+    @Scheduled(fixedDelayString = "${marketplace.counts.reconcile-interval-ms:300000}",
+            initialDelayString = "${marketplace.counts.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        long drift = correct(items, itemRepository::countTotalItems)
+                + correct(purchases, purchaseRepository::countTotalPurchases)
+                + correct(sellers, sellerRepository::countTotalSellers)
+                + correct(buyers, buyerRepository::countTotalBuyers)
+                + correct(inStock, itemRepository::countAvailableItems);
+        if (drift != 0) {
+            log.info("Reconciled live counts: items={}, purchases={}, sellers={}, buyers={}, inStock={} (corrected by {})",
+                    items.sum(), purchases.sum(), sellers.sum(), buyers.sum(), inStock.sum(), drift);
+        }
+    }
+
+
+    // Moves the counter by the difference between the table and the counter as it stood
+    // before the count ran; changes applied meanwhile are kept
+    private static long correct(LongAdder counter, LongSupplier count) {
+        long before = counter.sum();
+        long difference = count.getAsLong() - before;
+        counter.add(difference);
+        return Math.abs(difference);
+    }
+
+
+    private void change(LongAdder counter, long delta) {
+        if (enabled && delta != 0) {
+            TransactionHooks.afterCommit(() -> counter.add(delta));
+        }
+    }
+}
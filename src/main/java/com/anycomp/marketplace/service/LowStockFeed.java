@@ -0,0 +1,220 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.dto.StockAlert;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Server-sent low-stock alerts per seller. Each subscription carries its own threshold and
+// gets an event whenever one of the seller's items crosses it in either direction. Events
+// are queued per subscription and written by a small sender pool, so purchases never wait
+// on a subscriber's socket and a slow subscriber holds up only its own queue (and at worst
+// one sender thread). A subscriber whose queue fills up is disconnected; it reconnects to a
+// fresh snapshot. Subscriptions are capped per seller and overall, since each holds an open
+// connection.
+@Component
+public class LowStockFeed {
+
+    @Value("${marketplace.stock-index.feed-timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${marketplace.stock-index.feed-max-per-seller:5}")
+    private int maxPerSeller;
+
+    @Value("${marketplace.stock-index.feed-max-subscriptions:1000}")
+    private int maxSubscriptions;
+
+    // Above the controller's snapshot size, so a new subscription always fits its snapshot
+    @Value("${marketplace.stock-index.feed-max-queued:2000}")
+    private int maxQueued;
+
+    @Value("${marketplace.stock-index.feed-sender-threads:4}")
+    private int senderThreads;
+
+    private final Map<Long, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+
+    // Holds at most one drain task per subscription, so its queue is bounded by the caps
+    private ExecutorService sender;
+
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, task -> {
+            Thread thread = new Thread(task, "low-stock-feed-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    // Starts with a LOW event for each item already at or below the threshold. The
+    // subscription is registered before the snapshot is read, and live alerts wait until the
+    // snapshot is queued, so no crossing is lost; one that races the snapshot may repeat it.
+    // Returns null when the seller or the instance is at its subscription cap.
+    public SseEmitter subscribe(Long sellerId, int threshold, Supplier<List<ItemSummary>> alreadyLow) {
+        if (open.incrementAndGet() > maxSubscriptions) {
+            open.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscription subscription = new Subscription(threshold, emitter);
+        boolean[] added = new boolean[1];
+        subscriptions.compute(sellerId, (id, list) -> {
+            List<Subscription> result = list == null ? new CopyOnWriteArrayList<>() : list;
+            if (result.size() < maxPerSeller) {
+                result.add(subscription);
+                added[0] = true;
+            }
+            return result.isEmpty() ? null : result;
+        });
+        if (!added[0]) {
+            open.decrementAndGet();
+            return null;
+        }
+
+        Runnable drop = () -> subscriptions.computeIfPresent(sellerId, (id, list) -> {
+            if (list.remove(subscription)) {
+                open.decrementAndGet();
+            }
+            return list.isEmpty() ? null : list;
+        });
+        emitter.onCompletion(drop);
+        emitter.onTimeout(drop);
+        emitter.onError(e -> drop.run());
+
+        List<StockAlert> snapshot = new ArrayList<>();
+        try {
+            for (ItemSummary item : alreadyLow.get()) {
+                snapshot.add(new StockAlert(StockAlert.LOW, item.id(), sellerId, item.quantity(), threshold));
+            }
+        } catch (RuntimeException e) {
+            drop.run();
+            throw e;
+        }
+        subscription.replay(snapshot);
+        return emitter;
+    }
+
+
+    // Called by the stock index after a committed change; before is null for a new item
+    void quantityChanged(Long itemId, Long sellerId, Integer before, int after) {
+        List<Subscription> list = subscriptions.get(sellerId);
+        if (list == null) {
+            return;
+        }
+        for (Subscription subscription : list) {
+            int threshold = subscription.threshold;
+            String type = null;
+            if (after <= threshold && (before == null || before > threshold)) {
+                type = StockAlert.LOW;
+            } else if (after > threshold && before != null && before <= threshold) {
+                type = StockAlert.RESTOCKED;
+            }
+            if (type != null) {
+                subscription.offer(new StockAlert(type, itemId, sellerId, after, threshold));
+            }
+        }
+    }
+
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+        subscriptions.values().forEach(list -> list.forEach(subscription -> subscription.emitter.complete()));
+        subscriptions.clear();
+    }
+
+
+    private final class Subscription {
+        private final int threshold;
+        private final SseEmitter emitter;
+        // Live alerts that arrived before the snapshot was queued; null once it has been
+        private List<StockAlert> held = new ArrayList<>();
+        // Alerts waiting for the sender, and whether a drain task is scheduled for them
+        private final Deque<StockAlert> queued = new ArrayDeque<>();
+        private boolean draining;
+        private boolean overflowed;
+
+        Subscription(int threshold, SseEmitter emitter) {
+            this.threshold = threshold;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(StockAlert alert) {
+            if (held != null) {
+                held.add(alert);
+            } else {
+                enqueue(alert);
+            }
+        }
+
+        synchronized void replay(List<StockAlert> snapshot) {
+            snapshot.forEach(this::enqueue);
+            held.forEach(this::enqueue);
+            held = null;
+        }
+
+        // Call holding this subscription's monitor
+        private void enqueue(StockAlert alert) {
+            if (overflowed) {
+                return;
+            }
+            if (queued.size() == maxQueued) {
+                // Too far behind to catch up: drop what is queued and let the client reconnect
+                overflowed = true;
+                queued.clear();
+                emitter.complete();
+                return;
+            }
+            queued.add(alert);
+            if (!draining) {
+                draining = true;
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                StockAlert alert;
+                synchronized (this) {
+                    alert = queued.poll();
+                    if (alert == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                send(alert);
+            }
+        }
+
+        private void send(StockAlert alert) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(alert.type())
+                        .data(alert, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // Disconnected or already completed; the completion callback drops the subscription
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
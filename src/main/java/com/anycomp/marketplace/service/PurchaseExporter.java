@@ -0,0 +1,121 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.PurchaseExportRow;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Writes purchase history straight from a streamed query to an output stream.
+// Memory stays flat regardless of row count: one JDBC fetch and one output buffer at a time.
+// Each running export holds a pooled connection for its whole run, so only a few may run at
+// once and each is cut off after a maximum duration.
+@Service
+public class PurchaseExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEADLINE_CHECK_ROWS = 1_000;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String CSV_HEADER = "id,purchaseDate,buyerId,itemId,itemName,sellerId,quantity,totalPrice\n";
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Value("${marketplace.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${marketplace.export.max-duration-ms:600000}")
+    private long maxDurationMs;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Semaphore running;
+
+
+    @PostConstruct
+    void init() {
+        running = new Semaphore(maxConcurrent);
+    }
+
+
+    // Claims an export slot, or returns null when maxConcurrent exports are already running.
+    // The caller closes the slot once the export has finished or will not run.
+    public Slot tryReserve() {
+        return running.tryAcquire() ? new Slot() : null;
+    }
+
+
+    // Purchases in [from, to) (either bound may be null), optionally for one seller, in id order.
+    // The transaction keeps the cursor open so the fetch size takes effect.
+    @Transactional(readOnly = true)
+    public long export(DataFormat format, LocalDateTime from, LocalDateTime to, Long sellerId,
+                       OutputStream target) throws IOException {
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+        OutputStream out = new BufferedOutputStream(target, BUFFER_SIZE);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+        long rows = 0;
+
+        try (Stream<PurchaseExportRow> stream = sellerId == null
+                ? purchaseRepository.streamForExport(start, end)
+                : purchaseRepository.streamForExportBySellerId(start, end, sellerId)) {
+            if (format == DataFormat.CSV) {
+                out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            }
+            Iterator<PurchaseExportRow> it = stream.iterator();
+            while (it.hasNext()) {
+                PurchaseExportRow row = it.next();
+                if (format == DataFormat.CSV) {
+                    out.write(csvLine(row).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(row));
+                    out.write('\n');
+                }
+                rows++;
+                if (rows % DEADLINE_CHECK_ROWS == 0 && System.nanoTime() - deadline > 0) {
+                    throw new RuntimeException("Export stopped after " + maxDurationMs + " ms at " + rows + " rows");
+                }
+            }
+        }
+        out.flush();
+        return rows;
+    }
+
+
+    public final class Slot implements AutoCloseable {
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Slot() {
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                running.release();
+            }
+        }
+    }
+
+
+    private static String csvLine(PurchaseExportRow row) {
+        return row.id() + "," + row.purchaseDate() + "," + row.buyerId() + "," + row.itemId() + ","
+                + CsvRecords.escape(row.itemName()) + "," + row.sellerId() + "," + row.quantity() + ","
+                + row.totalPrice() + "\n";
+    }
+}
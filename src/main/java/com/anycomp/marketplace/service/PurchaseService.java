@@ -1,22 +1,45 @@
 package com.anycomp.marketplace.service;
 
+import com.anycomp.marketplace.dto.BestSeller;
+import com.anycomp.marketplace.dto.Cursor;
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.dto.PurchaseSummary;
+import com.anycomp.marketplace.dto.SalesBucket;
 import com.anycomp.marketplace.entity.Buyer;
 import com.anycomp.marketplace.entity.Item;
 import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.RollupGranularity;
+import com.anycomp.marketplace.exception.InvalidRequestException;
 import com.anycomp.marketplace.repository.BuyerRepository;
 import com.anycomp.marketplace.repository.ItemRepository;
 import com.anycomp.marketplace.repository.PurchaseRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed("marketplace.service")
 public class PurchaseService {
     
     @Autowired
@@ -28,9 +51,58 @@ public class PurchaseService {
     @Autowired
     private ItemRepository itemRepository;
     
+    @Autowired
+    private InventoryEngine inventoryEngine;
+    
+    @Autowired
+    private EntityCaches entityCaches;
+    
+    @Autowired
+    private PurchaseTotals purchaseTotals;
+    
+    @Autowired
+    private BestSellerBoard bestSellerBoard;
+    
+    @Autowired
+    private SalesRollups salesRollups;
+    
+    @Autowired
+    private StockIndex stockIndex;
+    
+    @Autowired
+    private LiveCounts liveCounts;
+    
+    @Autowired
+    private CatalogIndex catalogIndex;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${marketplace.singleflight.max-wait-ms:2000}")
+    private long maxWaitMs;
+    
+    private SingleFlight<String, Long> counts;
+    
+    
+    @PostConstruct
+    void init() {
+        counts = new SingleFlight<>("purchase-counts", Duration.ofMillis(maxWaitMs), key -> key);
+        counts.bindTo(meterRegistry);
+    }
+    
     
     public Purchase buyItem(Long buyerId, Long itemId, Integer quantity) {
         
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        
+        
+        if (!reserveStock(itemId, quantity)) {
+            throw new RuntimeException(stockFailureMessage(itemId, quantity, availableStock(itemId)));
+        }
+        
+        
         Buyer buyer = buyerRepository.findById(buyerId)
                 .orElseThrow(() -> new RuntimeException("Buyer not found with id: " + buyerId));
         
@@ -39,30 +111,216 @@ public class PurchaseService {
                 .orElseThrow(() -> new RuntimeException("Item not found with id: " + itemId));
         
         
-        if (item.getQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock. Available: " + item.getQuantity() + 
-                                     ", Requested: " + quantity);
+        Purchase purchase = new Purchase(buyer, item, quantity);
+        purchase = purchaseRepository.save(purchase);
+        liveCounts.purchasesAdded(1);
+        purchaseTotals.record(item.getSeller().getId(), buyerId, purchase.getTotalPrice());
+        bestSellerBoard.record(itemId, item.getName(), quantity);
+        salesRollups.record(purchase, 1);
+        
+        return purchase;
+    }
+    
+    
+    // Buy many lines in one transaction: one conditional UPDATE per item (falling back
+    // to per-line updates when the grouped quantity is not available) and batched inserts
+    public List<PurchaseLineResult> buyItems(List<PurchaseLine> lines) {
+        PurchaseLineResult[] results = new PurchaseLineResult[lines.size()];
+        
+        
+        Set<Long> requestedBuyerIds = new HashSet<>();
+        for (PurchaseLine line : lines) {
+            if (line.getBuyerId() != null) {
+                requestedBuyerIds.add(line.getBuyerId());
+            }
         }
+        Set<Long> existingBuyerIds = requestedBuyerIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(buyerRepository.findExistingIds(requestedBuyerIds));
         
         
-        if (quantity <= 0) {
-            throw new RuntimeException("Quantity must be positive");
+        Map<Long, List<Integer>> linesByItem = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            PurchaseLine line = lines.get(i);
+            String error = validateLine(line, existingBuyerIds);
+            if (error != null) {
+                results[i] = PurchaseLineResult.failure(i, error);
+            } else {
+                linesByItem.computeIfAbsent(line.getItemId(), id -> new ArrayList<>()).add(i);
+            }
         }
         
         
-        item.setQuantity(item.getQuantity() - quantity);
-        itemRepository.save(item);
+        List<Integer> accepted = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : linesByItem.entrySet()) {
+            Long itemId = entry.getKey();
+            List<Integer> indexes = entry.getValue();
+            int total = indexes.stream().mapToInt(i -> lines.get(i).getQuantity()).sum();
+            
+            if (reserveStock(itemId, total)) {
+                accepted.addAll(indexes);
+                continue;
+            }
+            for (Integer i : indexes) {
+                if (reserveStock(itemId, lines.get(i).getQuantity())) {
+                    accepted.add(i);
+                }
+            }
+        }
         
         
-        Purchase purchase = new Purchase(buyer, item, quantity);
-        purchase = purchaseRepository.save(purchase);
+        Map<Long, Item> items = itemRepository.findAllById(linesByItem.keySet()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
         
-        return purchase;
+        List<Purchase> purchases = new ArrayList<>(accepted.size());
+        for (Integer i : accepted) {
+            PurchaseLine line = lines.get(i);
+            Buyer buyer = buyerRepository.getReferenceById(line.getBuyerId());
+            Item item = items.get(line.getItemId());
+            Purchase purchase = new Purchase(buyer, item, line.getQuantity());
+            purchases.add(purchase);
+        }
+        purchases = purchaseRepository.saveAll(purchases);
+        liveCounts.purchasesAdded(purchases.size());
+        purchaseTotals.recordAll(purchases);
+        salesRollups.recordAll(purchases);
+        for (Purchase purchase : purchases) {
+            bestSellerBoard.record(purchase.getItem().getId(), purchase.getItem().getName(), purchase.getQuantity());
+        }
+        
+        for (int n = 0; n < accepted.size(); n++) {
+            int i = accepted.get(n);
+            results[i] = PurchaseLineResult.success(i, purchases.get(n));
+        }
+        
+        
+        for (List<Integer> indexes : linesByItem.values()) {
+            for (Integer i : indexes) {
+                if (results[i] != null) {
+                    continue;
+                }
+                PurchaseLine line = lines.get(i);
+                Item item = items.get(line.getItemId());
+                Integer available = inventoryEngine.isEnabled()
+                        ? inventoryEngine.getAvailable(line.getItemId())
+                        : (item == null ? null : item.getQuantity());
+                results[i] = PurchaseLineResult.failure(i, 
+                        stockFailureMessage(line.getItemId(), line.getQuantity(), available));
+            }
+        }
+        
+        return Arrays.asList(results);
+    }
+    
+    
+    // Take stock from the inventory engine when enabled, otherwise with a conditional UPDATE
+    private boolean reserveStock(Long itemId, Integer quantity) {
+        boolean reserved = inventoryEngine.isEnabled()
+                ? inventoryEngine.reserve(itemId, quantity)
+                : itemRepository.decrementStock(itemId, quantity) > 0;
+        if (reserved) {
+            stockIndex.adjust(itemId, -quantity);
+            catalogIndex.adjust(itemId, -quantity);
+            entityCaches.adjustItemStock(itemId, -quantity);
+        }
+        return reserved;
+    }
+    
+    
+    private Integer availableStock(Long itemId) {
+        if (inventoryEngine.isEnabled()) {
+            return inventoryEngine.getAvailable(itemId);
+        }
+        return itemRepository.findQuantityById(itemId).orElse(null);
+    }
+    
+    
+    private String stockFailureMessage(Long itemId, Integer requested, Integer available) {
+        if (available == null) {
+            return "Item not found with id: " + itemId;
+        }
+        return "Insufficient stock. Available: " + available + ", Requested: " + requested;
     }
     
     
-    public Page<Purchase> getAllPurchases(Pageable pageable) {
-        return purchaseRepository.findAll(pageable);
+    // First page starts from a date later than any purchase
+    private static final LocalDateTime FIRST_PAGE_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+    
+    
+    private static String cursorOf(PurchaseSummary purchase) {
+        return Cursor.encode(purchase.purchaseDate(), purchase.id());
+    }
+    
+    
+    private static LocalDateTime beforeDate(Cursor cursor) {
+        if (cursor == null) {
+            return FIRST_PAGE_DATE;
+        }
+        try {
+            return LocalDateTime.parse(cursor.getKey());
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+    
+    
+    private static Long beforeId(Cursor cursor) {
+        return cursor == null ? Long.MAX_VALUE : cursor.getId();
+    }
+    
+    
+    private String validateLine(PurchaseLine line, Set<Long> existingBuyerIds) {
+        if (line.getBuyerId() == null) {
+            return "Buyer ID is required";
+        }
+        if (line.getItemId() == null) {
+            return "Item ID is required";
+        }
+        if (line.getQuantity() == null || line.getQuantity() <= 0) {
+            return "Quantity must be positive";
+        }
+        if (!existingBuyerIds.contains(line.getBuyerId())) {
+            return "Buyer not found with id: " + line.getBuyerId();
+        }
+        return null;
+    }
+    
+    
+    public Page<PurchaseSummary> getAllPurchases(Pageable pageable) {
+        return purchaseRepository.findAllSummaries(pageable);
+    }
+    
+    
+    // Keyset pages, newest first
+    public CursorPage<PurchaseSummary> getPurchasesAfter(String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        List<PurchaseSummary> rows = purchaseRepository.findPageBefore(
+                beforeDate(cursor), beforeId(cursor), CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, PurchaseService::cursorOf);
+    }
+    
+    
+    public CursorPage<PurchaseSummary> getPurchasesByBuyerIdAfter(Long buyerId, String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        List<PurchaseSummary> rows = purchaseRepository.findPageByBuyerIdBefore(
+                buyerId, beforeDate(cursor), beforeId(cursor), CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, PurchaseService::cursorOf);
+    }
+    
+    
+    public CursorPage<PurchaseSummary> getPurchasesByItemIdAfter(Long itemId, String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        List<PurchaseSummary> rows = purchaseRepository.findPageByItemIdBefore(
+                itemId, beforeDate(cursor), beforeId(cursor), CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, PurchaseService::cursorOf);
+    }
+    
+    
+    public CursorPage<PurchaseSummary> getPurchasesBySellerIdAfter(Long sellerId, String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        List<PurchaseSummary> rows = purchaseRepository.findPageBySellerIdBefore(
+                sellerId, beforeDate(cursor), beforeId(cursor), CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, PurchaseService::cursorOf);
     }
     
     
@@ -71,49 +329,82 @@ public class PurchaseService {
     }
     
    
-    public Page<Purchase> getPurchasesByBuyerId(Long buyerId, Pageable pageable) {
+    public Page<PurchaseSummary> getPurchasesByBuyerId(Long buyerId, Pageable pageable) {
         return purchaseRepository.findByBuyerId(buyerId, pageable);
     }
     
     
-    public Page<Purchase> getPurchasesByItemId(Long itemId, Pageable pageable) {
+    public Page<PurchaseSummary> getPurchasesByItemId(Long itemId, Pageable pageable) {
         return purchaseRepository.findByItemId(itemId, pageable);
     }
     
     
-    public Page<Purchase> getPurchasesBySellerId(Long sellerId, Pageable pageable) {
+    public Page<PurchaseSummary> getPurchasesBySellerId(Long sellerId, Pageable pageable) {
         return purchaseRepository.findByItemSellerId(sellerId, pageable);
     }
     
     
-    public Page<Purchase> getPurchasesByDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
+    public Page<PurchaseSummary> getPurchasesByDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
         return purchaseRepository.findByPurchaseDateBetween(startDate, endDate, pageable);
     }
     
     
-    public Page<Purchase> getRecentPurchases(int days, Pageable pageable) {
+    public Page<PurchaseSummary> getRecentPurchases(int days, Pageable pageable) {
         LocalDateTime fromDate = LocalDateTime.now().minusDays(days);
         return purchaseRepository.findRecentPurchases(fromDate, pageable);
     }
     
     
+    // Keyset pages of [startDate, endDate], newest first
+    public CursorPage<PurchaseSummary> getPurchasesByDateRangeAfter(LocalDateTime startDate, LocalDateTime endDate,
+                                                             String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        List<PurchaseSummary> rows = purchaseRepository.findPageByPurchaseDateBetweenBefore(
+                startDate, endDate, beforeDate(cursor), beforeId(cursor), CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, PurchaseService::cursorOf);
+    }
+    
+    
+    // Recent purchases as keyset pages. The window is resolved again on each page, so a long
+    // scroll may see a few purchases fall out of it at the old end.
+    public CursorPage<PurchaseSummary> getRecentPurchasesAfter(int days, String after, int size) {
+        LocalDateTime fromDate = LocalDateTime.now().minusDays(days);
+        return getPurchasesByDateRangeAfter(fromDate, FIRST_PAGE_DATE, after, size);
+    }
+    
+    
     public Double getTotalRevenueForSeller(Long sellerId) {
-        return purchaseRepository.getTotalRevenueForSeller(sellerId);
+        return purchaseTotals.revenueOf(sellerId);
     }
     
     
     public Double getTotalSpendingForBuyer(Long buyerId) {
-        return purchaseRepository.getTotalSpendingForBuyer(buyerId);
+        return purchaseTotals.spendingOf(buyerId);
     }
     
     
-    public List<Object[]> getMostPurchasedItems() {
-        return purchaseRepository.getMostPurchasedItems();
+    public List<BestSeller> getMostPurchasedItems(int limit) {
+        return bestSellerBoard.top(limit);
     }
     
     
+    // Sales time series from the hourly/daily rollups; itemId or sellerId may be null
+    // (no transaction here: the read runs in its own snapshot transaction)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<SalesBucket> getSalesSeries(RollupGranularity granularity, LocalDateTime from, LocalDateTime to, 
+                                            Long itemId, Long sellerId) {
+        return salesRollups.series(granularity, from, to, itemId, sellerId);
+    }
+    
+    
+    // A memory read when live counts are on; otherwise the database count is shared by
+    // concurrent callers, who therefore wait without a transaction
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getTotalPurchasesCount() {
-        return purchaseRepository.countTotalPurchases();
+        if (liveCounts.isEnabled()) {
+            return liveCounts.purchases();
+        }
+        return counts.execute("total", purchaseRepository::countTotalPurchases);
     }
     
     
@@ -128,12 +419,24 @@ public class PurchaseService {
         }
         
         
-        Item item = purchase.getItem();
-        item.setQuantity(item.getQuantity() + purchase.getQuantity());
-        itemRepository.save(item);
+        Long itemId = purchase.getItem().getId();
+        Integer quantity = purchase.getQuantity();
+        purchaseRepository.delete(purchase);
+        liveCounts.purchaseRemoved();
+        purchaseTotals.record(purchase.getItem().getSeller().getId(), purchase.getBuyer().getId(), 
+                -purchase.getTotalPrice());
+        bestSellerBoard.record(itemId, purchase.getItem().getName(), -quantity);
+        salesRollups.record(purchase, -1);
         
         
-        purchaseRepository.delete(purchase);
+        if (inventoryEngine.isEnabled()) {
+            inventoryEngine.restock(itemId, quantity);
+        } else {
+            itemRepository.incrementStock(itemId, quantity);
+        }
+        stockIndex.adjust(itemId, quantity);
+        catalogIndex.adjust(itemId, quantity);
+        entityCaches.adjustItemStock(itemId, quantity);
     }
     
     
@@ -144,12 +447,68 @@ public class PurchaseService {
         }
         
         
-        Optional<Item> itemOpt = itemRepository.findById(itemId);
+        if (inventoryEngine.isEnabled()) {
+            Integer available = inventoryEngine.getAvailable(itemId);
+            return available != null && available >= quantity && quantity > 0;
+        }
+        
+        
+        Optional<ItemSummary> itemOpt = entityCaches.item(itemId);
         if (itemOpt.isEmpty()) {
             return false;
         }
         
-        Item item = itemOpt.get();
-        return item.getQuantity() >= quantity && quantity > 0;
+        return itemOpt.get().quantity() >= quantity && quantity > 0;
+    }
+    
+    
+    // One line of a batch purchase
+    public static class PurchaseLine {
+        private final Long buyerId;
+        private final Long itemId;
+        private final Integer quantity;
+        
+        public PurchaseLine(Long buyerId, Long itemId, Integer quantity) {
+            this.buyerId = buyerId;
+            this.itemId = itemId;
+            this.quantity = quantity;
+        }
+        
+        public Long getBuyerId() { return buyerId; }
+        
+        public Long getItemId() { return itemId; }
+        
+        public Integer getQuantity() { return quantity; }
+    }
+    
+    // Outcome of one batch purchase line
+    public static class PurchaseLineResult {
+        private final int line;
+        private final boolean success;
+        private final String message;
+        private final Purchase purchase;
+        
+        private PurchaseLineResult(int line, boolean success, String message, Purchase purchase) {
+            this.line = line;
+            this.success = success;
+            this.message = message;
+            this.purchase = purchase;
+        }
+        
+        static PurchaseLineResult success(int line, Purchase purchase) {
+            return new PurchaseLineResult(line, true, "Purchase created successfully", purchase);
+        }
+        
+        static PurchaseLineResult failure(int line, String message) {
+            return new PurchaseLineResult(line, false, message, null);
+        }
+        
+        public int getLine() { return line; }
+        
+        public boolean isSuccess() { return success; }
+        
+        public String getMessage() { return message; }
+        
+        public Purchase getPurchase() { return purchase; }
     }
 }
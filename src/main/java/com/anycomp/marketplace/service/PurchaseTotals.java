@@ -0,0 +1,196 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.BuyerSpending;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.PurchaseTotalDelta;
+import com.anycomp.marketplace.entity.SellerRevenue;
+import com.anycomp.marketplace.repository.BuyerSpendingRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.PurchaseTotalDeltaRepository;
+import com.anycomp.marketplace.repository.SellerRevenueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running revenue per seller and spending per buyer.
+ *
+ * A purchase or cancellation does not touch the totals rows: its transaction appends a row
+ * to {@code purchase_total_deltas}, which contends with nothing, and a background fold adds
+ * the deltas into {@code seller_revenue} and {@code buyer_spending} in batches. Only the
+ * fold updates a totals row, so checkouts for a hot seller never queue on it. Reads add the
+ * few deltas not folded yet to the stored total, so they see every committed purchase. A
+ * seller or buyer without a row yet falls back to the SUM over purchases.
+ *
+ * Reconciliation rebuilds every total from {@code purchases} and drops the deltas in one
+ * repeatable-read transaction. Purchases and deltas are written together, so the snapshot
+ * that sums the purchases sees exactly the deltas it may drop; deltas committed later stay
+ * for the next fold.
+ */
+@Component
+public class PurchaseTotals {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseTotals.class);
+
+    private static final int FOLD_BATCH = 5_000;
+
+    @Value("${marketplace.totals.reconcile-on-startup:true}")
+    private boolean reconcileOnStartup;
+
+    @Autowired
+    private SellerRevenueRepository sellerRevenueRepository;
+
+    @Autowired
+    private BuyerSpendingRepository buyerSpendingRepository;
+
+    @Autowired
+    private PurchaseTotalDeltaRepository purchaseTotalDeltaRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Fold and reconcile both rewrite totals rows; one at a time per instance
+    private final Lock foldLock = new ReentrantLock();
+
+
+    // Must run inside the transaction that writes or deletes the purchase
+    public void record(Long sellerId, Long buyerId, double amount) {
+        purchaseTotalDeltaRepository.save(new PurchaseTotalDelta(sellerId, buyerId, amount));
+    }
+
+
+    // Same as record for a whole batch, one delta per seller and buyer pair
+    public void recordAll(List<Purchase> purchases) {
+        Map<List<Long>, Double> byPair = new HashMap<>();
+        for (Purchase purchase : purchases) {
+            byPair.merge(List.of(purchase.getItem().getSeller().getId(), purchase.getBuyer().getId()),
+                    purchase.getTotalPrice(), Double::sum);
+        }
+        List<PurchaseTotalDelta> deltas = new ArrayList<>(byPair.size());
+        byPair.forEach((pair, amount) -> deltas.add(new PurchaseTotalDelta(pair.get(0), pair.get(1), amount)));
+        purchaseTotalDeltaRepository.saveAll(deltas);
+    }
+
+
+    public void openSeller(Long sellerId) {
+        sellerRevenueRepository.save(new SellerRevenue(sellerId, 0.0));
+    }
+
+
+    public void openBuyer(Long buyerId) {
+        buyerSpendingRepository.save(new BuyerSpending(buyerId, 0.0));
+    }
+
+
+    public void closeSeller(Long sellerId) {
+        sellerRevenueRepository.deleteById(sellerId);
+    }
+
+
+    public void closeBuyer(Long buyerId) {
+        buyerSpendingRepository.deleteById(buyerId);
+    }
+
+
+    public Double revenueOf(Long sellerId) {
+        return sellerRevenueRepository.findTotalBySellerId(sellerId)
+                .orElseGet(() -> purchaseRepository.getTotalRevenueForSeller(sellerId));
+    }
+
+
+    public Double spendingOf(Long buyerId) {
+        return buyerSpendingRepository.findTotalByBuyerId(buyerId)
+                .orElseGet(() -> purchaseRepository.getTotalSpendingForBuyer(buyerId));
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    void reconcileAtStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+
+    // Adds pending deltas into the totals rows and deletes them, in one transaction per batch
+    @Scheduled(fixedDelayString = "${marketplace.totals.fold-interval-ms:1000}")
+    public void fold() {
+        foldLock.lock();
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            Integer folded;
+            do {
+                folded = transaction.execute(status -> foldBatch());
+            } while (folded != null && folded == FOLD_BATCH);
+        } catch (RuntimeException e) {
+            log.warn("Folding purchase totals failed, will retry: {}", e.getMessage());
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+
+    @Scheduled(cron = "${marketplace.totals.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        foldLock.lock();
+        try {
+            transaction.executeWithoutResult(status -> {
+                sellerRevenueRepository.insertMissing();
+                buyerSpendingRepository.insertMissing();
+                int sellers = sellerRevenueRepository.rebuildAll();
+                int buyers = buyerSpendingRepository.rebuildAll();
+                int deltas = purchaseTotalDeltaRepository.deleteVisible();
+                log.info("Reconciled totals for {} sellers and {} buyers ({} deltas absorbed) in {} ms",
+                        sellers, buyers, deltas, (System.nanoTime() - start) / 1_000_000);
+            });
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+
+    private int foldBatch() {
+        List<PurchaseTotalDelta> deltas = purchaseTotalDeltaRepository.findOldest(PageRequest.of(0, FOLD_BATCH));
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Double> bySeller = new HashMap<>();
+        Map<Long, Double> byBuyer = new HashMap<>();
+        List<Long> ids = new ArrayList<>(deltas.size());
+        for (PurchaseTotalDelta delta : deltas) {
+            bySeller.merge(delta.getSellerId(), delta.getAmount(), Double::sum);
+            byBuyer.merge(delta.getBuyerId(), delta.getAmount(), Double::sum);
+            ids.add(delta.getId());
+        }
+        // Another instance folding the same rows deletes fewer; roll back rather than count them twice
+        if (purchaseTotalDeltaRepository.deleteByIds(ids) != ids.size()) {
+            throw new IllegalStateException("Purchase total deltas were folded concurrently");
+        }
+        // A seller or buyer without a row reads its total from SUM, so its deltas can go
+        bySeller.forEach(sellerRevenueRepository::addToTotal);
+        byBuyer.forEach(buyerSpendingRepository::addToTotal);
+        return deltas.size();
+    }
+}
@@ -0,0 +1,279 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.SalesBucket;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.RollupGranularity;
+import com.anycomp.marketplace.entity.SalesRollup;
+import com.anycomp.marketplace.entity.SalesRollupDelta;
+import com.anycomp.marketplace.exception.InvalidRequestException;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.SalesRollupDeltaRepository;
+import com.anycomp.marketplace.repository.SalesRollupRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hourly and daily sales buckets per item, for time-series analytics.
+ *
+ * Like the purchase totals, a purchase or cancellation does not touch the bucket rows: its
+ * transaction appends a row per item and hour to {@code sales_rollup_deltas}, and a
+ * background fold adds the deltas into {@code sales_rollups} in batches. A committed sale
+ * is therefore never lost with the process, and checkouts of a hot item never queue on its
+ * bucket row. Series reads add the few deltas not folded yet to the stored buckets, in one
+ * repeatable-read snapshot so a fold on another instance is counted exactly once. An empty rollup
+ * table is backfilled from the purchase history at startup.
+ */
+@Component
+public class SalesRollups {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollups.class);
+
+    private static final int BACKFILL_CHUNK = 10_000;
+    private static final int FOLD_BATCH = 5_000;
+    private static final int MAX_BUCKETS = 5_000;
+
+    @Value("${marketplace.rollups.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private SalesRollupDeltaRepository salesRollupDeltaRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Fold and backfill both rewrite bucket rows, one at a time per instance, under the write
+    // lock. Series reads hold the read lock: a fold moves rows between the two tables a read
+    // sums, and not every database gives a repeatable read one snapshot across both.
+    private final ReadWriteLock foldLock = new ReentrantReadWriteLock();
+
+
+    // Rebuilds the buckets from purchases and drops the deltas in one repeatable-read
+    // transaction, so deltas of purchases the snapshot does not see stay for the fold
+    @PostConstruct
+    void backfill() {
+        if (!backfillOnStartup || salesRollupRepository.count() > 0) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        foldLock.writeLock().lock();
+        try {
+            long purchases = transaction.execute(status -> {
+                long read = 0;
+                Long afterId = 0L;
+                List<Object[]> rows;
+                do {
+                    rows = purchaseRepository.findRollupRowsAfter(afterId, PageRequest.of(0, BACKFILL_CHUNK));
+                    Map<BucketKey, Delta> chunk = new HashMap<>();
+                    for (Object[] row : rows) {
+                        afterId = (Long) row[0];
+                        add(chunk, (LocalDateTime) row[1], (Long) row[2], (Long) row[3],
+                                new Delta(((Integer) row[4]).longValue(), (Double) row[5], 1));
+                    }
+                    chunk.forEach(this::write);
+                    read += rows.size();
+                } while (rows.size() == BACKFILL_CHUNK);
+                salesRollupDeltaRepository.deleteVisible();
+                return read;
+            });
+            if (purchases > 0) {
+                log.info("Backfilled sales rollups from {} purchases", purchases);
+            }
+        } finally {
+            foldLock.writeLock().unlock();
+        }
+    }
+
+
+    // Call inside the transaction that creates (sign 1) or deletes (sign -1) the purchase
+    public void record(Purchase purchase, int sign) {
+        salesRollupDeltaRepository.save(deltaOf(purchase, sign));
+    }
+
+
+    // Same as record for a whole batch of new purchases, one delta per item and hour
+    public void recordAll(List<Purchase> purchases) {
+        Map<List<Object>, SalesRollupDelta> byItemHour = new HashMap<>();
+        for (Purchase purchase : purchases) {
+            SalesRollupDelta delta = deltaOf(purchase, 1);
+            byItemHour.merge(List.of(delta.getItemId(), delta.getHourStart()), delta, (a, b) -> {
+                a.setQuantity(a.getQuantity() + b.getQuantity());
+                a.setRevenue(a.getRevenue() + b.getRevenue());
+                a.setOrders(a.getOrders() + b.getOrders());
+                return a;
+            });
+        }
+        salesRollupDeltaRepository.saveAll(byItemHour.values());
+    }
+
+
+    // Non-empty buckets in [from, to) in time order; itemId or sellerId narrow the series when set
+    public List<SalesBucket> series(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                    Long itemId, Long sellerId) {
+        if (!from.isBefore(to)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        if (granularity.bucketsBetween(from, to) > MAX_BUCKETS) {
+            throw new InvalidRequestException("Range spans more than " + MAX_BUCKETS + " buckets");
+        }
+        LocalDateTime start = granularity.bucketOf(from);
+
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setReadOnly(true);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshot.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        foldLock.readLock().lock();
+        try {
+            return snapshot.execute(status -> merge(granularity,
+                    stored(granularity, start, to, itemId, sellerId), unfolded(start, to, itemId, sellerId)));
+        } finally {
+            foldLock.readLock().unlock();
+        }
+    }
+
+
+    // Adds pending deltas into the bucket rows and deletes them, in one transaction per batch
+    @Scheduled(fixedDelayString = "${marketplace.rollups.fold-interval-ms:1000}")
+    public void fold() {
+        foldLock.writeLock().lock();
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            Integer folded;
+            do {
+                folded = transaction.execute(status -> foldBatch());
+            } while (folded != null && folded == FOLD_BATCH);
+        } catch (RuntimeException e) {
+            log.warn("Folding sales rollups failed, will retry: {}", e.getMessage());
+        } finally {
+            foldLock.writeLock().unlock();
+        }
+    }
+
+
+    private int foldBatch() {
+        List<SalesRollupDelta> deltas = salesRollupDeltaRepository.findOldest(PageRequest.of(0, FOLD_BATCH));
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        Map<BucketKey, Delta> buckets = new HashMap<>();
+        List<Long> ids = new ArrayList<>(deltas.size());
+        for (SalesRollupDelta delta : deltas) {
+            add(buckets, delta.getHourStart(), delta.getItemId(), delta.getSellerId(),
+                    new Delta(delta.getQuantity(), delta.getRevenue(), delta.getOrders()));
+            ids.add(delta.getId());
+        }
+        // Another instance folding the same rows deletes fewer; roll back rather than count them twice
+        if (salesRollupDeltaRepository.deleteByIds(ids) != ids.size()) {
+            throw new IllegalStateException("Sales rollup deltas were folded concurrently");
+        }
+        buckets.forEach(this::write);
+        return deltas.size();
+    }
+
+
+    private List<SalesBucket> stored(RollupGranularity granularity, LocalDateTime start, LocalDateTime to,
+                                     Long itemId, Long sellerId) {
+        if (itemId != null) {
+            return salesRollupRepository.findSeriesByItemId(granularity, start, to, itemId);
+        }
+        if (sellerId != null) {
+            return salesRollupRepository.findSeriesBySellerId(granularity, start, to, sellerId);
+        }
+        return salesRollupRepository.findSeries(granularity, start, to);
+    }
+
+
+    // Deltas not folded yet, summed per hour
+    private List<SalesBucket> unfolded(LocalDateTime start, LocalDateTime to, Long itemId, Long sellerId) {
+        if (itemId != null) {
+            return salesRollupDeltaRepository.findHoursByItemId(start, to, itemId);
+        }
+        if (sellerId != null) {
+            return salesRollupDeltaRepository.findHoursBySellerId(start, to, sellerId);
+        }
+        return salesRollupDeltaRepository.findHours(start, to);
+    }
+
+
+    private static List<SalesBucket> merge(RollupGranularity granularity, List<SalesBucket> stored,
+                                           List<SalesBucket> unfolded) {
+        TreeMap<LocalDateTime, SalesBucket> buckets = new TreeMap<>();
+        for (SalesBucket bucket : stored) {
+            buckets.put(bucket.bucketStart(), bucket);
+        }
+        for (SalesBucket hour : unfolded) {
+            LocalDateTime bucketStart = granularity.bucketOf(hour.bucketStart());
+            buckets.merge(bucketStart, new SalesBucket(bucketStart, hour.quantity(), hour.revenue(), hour.orders()),
+                    (a, b) -> a.plus(b.quantity(), b.revenue(), b.orders()));
+        }
+        List<SalesBucket> series = new ArrayList<>(buckets.size());
+        for (SalesBucket bucket : buckets.values()) {
+            if (bucket.orders() != 0 || bucket.quantity() != 0) {
+                series.add(bucket);
+            }
+        }
+        return series;
+    }
+
+
+    private static SalesRollupDelta deltaOf(Purchase purchase, int sign) {
+        return new SalesRollupDelta(RollupGranularity.HOUR.bucketOf(purchase.getPurchaseDate()),
+                purchase.getItem().getId(), purchase.getItem().getSeller().getId(),
+                (long) sign * purchase.getQuantity(), sign * purchase.getTotalPrice(), (long) sign);
+    }
+
+
+    private static void add(Map<BucketKey, Delta> buckets, LocalDateTime time, Long itemId, Long sellerId,
+                            Delta delta) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            BucketKey key = new BucketKey(granularity, granularity.bucketOf(time), itemId, sellerId);
+            buckets.merge(key, delta, Delta::plus);
+        }
+    }
+
+
+    private void write(BucketKey key, Delta delta) {
+        int updated = salesRollupRepository.addToBucket(key.granularity(), key.bucketStart(), key.itemId(),
+                delta.quantity(), delta.revenue(), delta.orders());
+        if (updated == 0) {
+            salesRollupRepository.save(new SalesRollup(key.granularity(), key.bucketStart(), key.itemId(),
+                    key.sellerId(), delta.quantity(), delta.revenue(), delta.orders()));
+        }
+    }
+
+
+    private record BucketKey(RollupGranularity granularity, LocalDateTime bucketStart, Long itemId, Long sellerId) {
+    }
+
+
+    private record Delta(long quantity, double revenue, long orders) {
+
+        Delta plus(Delta other) {
+            return new Delta(quantity + other.quantity, revenue + other.revenue, orders + other.orders);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// In-process substring search over item, seller and buyer names (and item descriptions).
+// Loaded from the database at startup and kept current by the services after each commit.
+@Component
+public class SearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    private static final int LOAD_CHUNK = 10_000;
+
+    @Value("${marketplace.search.index.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    private final NgramIndex itemNames = new NgramIndex();
+    private final NgramIndex itemDescriptions = new NgramIndex();
+    private final NgramIndex sellerNames = new NgramIndex();
+    private final NgramIndex buyerNames = new NgramIndex();
+
+
+    @PostConstruct
+    void load() {
+        if (!enabled) {
+            return;
+        }
+        load(itemRepository::findSearchTextAfter, row -> {
+            itemNames.put((Long) row[0], (String) row[1]);
+            itemDescriptions.put((Long) row[0], (String) row[2]);
+        });
+        load(sellerRepository::findSearchTextAfter, row -> sellerNames.put((Long) row[0], (String) row[1]));
+        load(buyerRepository::findSearchTextAfter, row -> buyerNames.put((Long) row[0], (String) row[1]));
+        log.info("Search index loaded {} items, {} sellers, {} buyers",
+                itemNames.size(), sellerNames.size(), buyerNames.size());
+    }
+
+
+    public void indexItem(Long id, String name, String description) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> {
+                itemNames.put(id, name);
+                itemDescriptions.put(id, description);
+            });
+        }
+    }
+
+
+    public void removeItem(Long id) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> {
+                itemNames.remove(id);
+                itemDescriptions.remove(id);
+            });
+        }
+    }
+
+
+    public void indexSeller(Long id, String name) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> sellerNames.put(id, name));
+        }
+    }
+
+
+    public void removeSeller(Long id) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> sellerNames.remove(id));
+        }
+    }
+
+
+    public void indexBuyer(Long id, String name) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> buyerNames.put(id, name));
+        }
+    }
+
+
+    public void removeBuyer(Long id) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> buyerNames.remove(id));
+        }
+    }
+
+
+    // Ids in ascending order, or null when the caller should fall back to the database
+    public List<Long> searchItems(String text, boolean includeDescription) {
+        if (!enabled) {
+            return null;
+        }
+        List<Long> byName = itemNames.search(text);
+        if (byName == null || !includeDescription) {
+            return byName;
+        }
+        TreeSet<Long> merged = new TreeSet<>(byName);
+        merged.addAll(itemDescriptions.search(text));
+        return new ArrayList<>(merged);
+    }
+
+
+    public List<Long> searchSellers(String name) {
+        return enabled ? sellerNames.search(name) : null;
+    }
+
+
+    public List<Long> searchBuyers(String name) {
+        return enabled ? buyerNames.search(name) : null;
+    }
+
+
+    // Loads only the requested page of matching rows, keeping id order
+    public static <T> Page<T> page(List<Long> ids, Pageable pageable,
+                                   Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return page(ids.subList(from, to), ids.size(), pageable, loader, idOf);
+    }
+
+
+    // Same, for a caller that already picked the page's ids out of total matches
+    public static <T> Page<T> page(List<Long> pageIds, long total, Pageable pageable,
+                                   Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, total);
+        }
+
+        Map<Long, T> rows = new HashMap<>();
+        for (T row : loader.apply(pageIds)) {
+            rows.put(idOf.apply(row), row);
+        }
+        List<T> content = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            T row = rows.get(id);
+            if (row != null) {
+                content.add(row);
+            }
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+
+    private void load(BiFunction<Long, Pageable, List<Object[]>> chunk, Consumer<Object[]> sink) {
+        Long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = chunk.apply(afterId, PageRequest.of(0, LOAD_CHUNK));
+            for (Object[] row : rows) {
+                sink.accept(row);
+                afterId = (Long) row[0];
+            }
+        } while (rows.size() == LOAD_CHUNK);
+    }
+}
@@ -1,38 +1,71 @@
 package com.anycomp.marketplace.service;
 
+import com.anycomp.marketplace.dto.Cursor;
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.SellerSummary;
 import com.anycomp.marketplace.entity.Seller;
 import com.anycomp.marketplace.repository.SellerRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Optional;
 
 @Service
 @Transactional
+@Timed("marketplace.service")
 public class SellerService {
     
     @Autowired
     private SellerRepository sellerRepository;
     
+    @Autowired
+    private SearchIndex searchIndex;
+    
+    @Autowired
+    private EntityCaches entityCaches;
+    
+    @Autowired
+    private PurchaseTotals purchaseTotals;
+    
+    @Autowired
+    private LiveCounts liveCounts;
+    
     
     public Seller createSeller(Seller seller) {
         
         if (sellerRepository.existsByEmail(seller.getEmail())) {
             throw new RuntimeException("Seller with email " + seller.getEmail() + " already exists");
         }
-        return sellerRepository.save(seller);
+        Seller saved = sellerRepository.save(seller);
+        purchaseTotals.openSeller(saved.getId());
+        liveCounts.sellerAdded();
+        searchIndex.indexSeller(saved.getId(), saved.getName());
+        return saved;
+    }
+    
+    
+    public Page<SellerSummary> getAllSellers(Pageable pageable) {
+        return sellerRepository.findAllSummaries(pageable);
     }
     
     
-    public Page<Seller> getAllSellers(Pageable pageable) {
-        return sellerRepository.findAll(pageable);
+    public CursorPage<SellerSummary> getAllSellersAfter(String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        Long afterId = cursor == null ? 0L : cursor.getId();
+        List<SellerSummary> rows = sellerRepository.findSummariesAfter(afterId, CursorPage.fetchLimit(size));
+        return CursorPage.of(rows, size, seller -> Cursor.encode(seller.id()));
     }
     
     
-    public Optional<Seller> getSellerById(Long id) {
-        return sellerRepository.findById(id);
+    // No transaction here: a cache miss opens one only for the shared load
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<SellerSummary> getSellerById(Long id) {
+        return entityCaches.seller(id);
     }
     
     
@@ -54,7 +87,10 @@ public class SellerService {
         seller.setName(sellerDetails.getName());
         seller.setEmail(sellerDetails.getEmail());
         
-        return sellerRepository.save(seller);
+        Seller saved = sellerRepository.save(seller);
+        entityCaches.evictSeller(id);
+        searchIndex.indexSeller(id, saved.getName());
+        return saved;
     }
     
     
@@ -68,25 +104,38 @@ public class SellerService {
         }
         
         sellerRepository.delete(seller);
+        purchaseTotals.closeSeller(id);
+        liveCounts.sellerRemoved();
+        entityCaches.evictSeller(id);
+        searchIndex.removeSeller(id);
     }
     
     
-    public Page<Seller> searchSellersByName(String name, Pageable pageable) {
-        return sellerRepository.findByNameContainingIgnoreCase(name, pageable);
+    public Page<SellerSummary> searchSellersByName(String name, Pageable pageable) {
+        List<Long> ids = searchIndex.searchSellers(name);
+        if (ids == null) {
+            return sellerRepository.findByNameContainingIgnoreCase(name, pageable);
+        }
+        return SearchIndex.page(ids, pageable, sellerRepository::findSummariesByIdIn, SellerSummary::id);
     }
     
     
-    public Page<Seller> getSellersWithItems(Pageable pageable) {
+    public Page<SellerSummary> getSellersWithItems(Pageable pageable) {
         return sellerRepository.findSellersWithItems(pageable);
     }
     
     
-    public Page<Seller> getSellersWithSales(Pageable pageable) {
+    public Page<SellerSummary> getSellersWithSales(Pageable pageable) {
         return sellerRepository.findSellersWithSales(pageable);
     }
     
     
+    // A memory read when live counts are on, so no transaction (and no connection) is needed
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getTotalSellersCount() {
+        if (liveCounts.isEnabled()) {
+            return liveCounts.sellers();
+        }
         return sellerRepository.countTotalSellers();
     }
     
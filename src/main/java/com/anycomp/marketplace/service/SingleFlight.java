@@ -0,0 +1,110 @@
+package com.anycomp.marketplace.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Collapses concurrent loads of the same key into one: the first caller runs the load and
+// everyone who asks for that key meanwhile gets its result (or its exception). A caller that
+// waits longer than the max wait stops waiting and runs the load itself. Nothing is kept
+// once the load finishes; caching is the caller's business.
+// Meters count executed, coalesced and timed-out calls per flight and key tag; the tag
+// function keeps the key set bounded (ids map to one tag, named counts to their name).
+class SingleFlight<K, V> {
+
+    private final String name;
+    private final long maxWaitNanos;
+    private final Function<K, String> keyTag;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+    private MeterRegistry registry;
+
+    SingleFlight(String name, Duration maxWait, Function<K, String> keyTag) {
+        this.name = name;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.keyTag = keyTag;
+    }
+
+
+    void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+
+    V execute(K key, Supplier<V> load) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running == null) {
+            count(key, Outcome.EXECUTED);
+            try {
+                V value = load.get();
+                flight.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        try {
+            V value = running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            count(key, Outcome.COALESCED);
+            return value;
+        } catch (TimeoutException e) {
+            count(key, Outcome.TIMED_OUT);
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            count(key, Outcome.TIMED_OUT);
+            return load.get();
+        } catch (ExecutionException e) {
+            count(key, Outcome.COALESCED);
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+
+    private void count(K key, Outcome outcome) {
+        if (registry == null) {
+            return;
+        }
+        Counter[] byOutcome = counters.computeIfAbsent(keyTag.apply(key), tag -> {
+            Counter[] created = new Counter[Outcome.values().length];
+            for (Outcome each : Outcome.values()) {
+                created[each.ordinal()] = Counter.builder("marketplace.singleflight.calls")
+                        .tag("flight", name).tag("key", tag).tag("result", each.tag)
+                        .register(registry);
+            }
+            return created;
+        });
+        byOutcome[outcome.ordinal()].increment();
+    }
+
+
+    private enum Outcome {
+        EXECUTED("executed"), COALESCED("coalesced"), TIMED_OUT("timed.out");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.repository.ItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+// In-memory index of items ordered by quantity, overall and per seller. Loaded once at
+// startup and kept current by stock changes after they commit, so a low-stock query walks
+// one page of the index plus one lookup of the page's rows, not a scan of items.
+// Threshold crossings are handed to the low-stock feed, and items going in or out of
+// stock move the live in-stock count.
+//
+// Changes to one item are serialized on its map entry; the ordered sets are concurrent,
+// so sales of different items and low-stock reads never wait on each other. Commit hooks
+// of one item can still land out of order (an absolute update against a sale), so a
+// periodic reconcile compares the index with the table and repairs what it finds.
+@Component
+public class StockIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(StockIndex.class);
+
+    private static final int LOAD_CHUNK = 10_000;
+
+    private static final Comparator<Level> BY_QUANTITY = Comparator
+            .comparingInt(Level::quantity)
+            .thenComparing(Level::itemId);
+
+    @Value("${marketplace.stock-index.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private LowStockFeed lowStockFeed;
+
+    @Autowired
+    private LiveCounts liveCounts;
+
+    private final Map<Long, Level> byItem = new ConcurrentHashMap<>();
+    private final Shelf all = new Shelf();
+    private final Map<Long, Shelf> bySeller = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    // Mismatches seen by the last reconcile; repaired when the next one sees them unchanged
+    private Map<Long, Mismatch> mismatches = Map.of();
+
+
+    @PostConstruct
+    void load() {
+        if (!enabled) {
+            return;
+        }
+        Long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = itemRepository.findStockLevelsAfter(afterId, PageRequest.of(0, LOAD_CHUNK));
+            for (Object[] row : rows) {
+                Long itemId = (Long) row[0];
+                Long sellerId = (Long) row[1];
+                int quantity = (Integer) row[2];
+                change(itemId, current -> level(itemId, sellerId, quantity), false, false);
+                afterId = itemId;
+            }
+        } while (rows.size() == LOAD_CHUNK);
+        log.info("Stock index loaded {} items", byItem.size());
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    // Adopt an absolute quantity (create, update, import) once the transaction commits
+    public void track(Long itemId, Long sellerId, int quantity) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> change(itemId, current -> level(itemId, sellerId, quantity), true, true));
+        }
+    }
+
+
+    // Apply a relative change (negative for a sale, positive for a cancellation) once the transaction commits
+    public void adjust(Long itemId, int delta) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> change(itemId,
+                    current -> current == null ? null : level(itemId, current.sellerId(), current.quantity() + delta),
+                    true, true));
+        }
+    }
+
+
+    public void untrack(Long itemId) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> change(itemId, current -> null, true, true));
+        }
+    }
+
+
+    // Items with quantity <= threshold, lowest stock first, optionally for one seller. The page
+    // is read straight off the ordered set and the total from the per-quantity counts.
+    public Page<ItemSummary> lowStock(int threshold, Long sellerId, Pageable pageable) {
+        Shelf shelf = sellerId == null ? all : bySeller.get(sellerId);
+        if (shelf == null) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        long total = shelf.countUpTo(threshold);
+        List<Long> ids = new ArrayList<>(pageable.getPageSize());
+        long skip = pageable.getOffset();
+        for (Level level : shelf.levels.headSet(new Level(Long.MAX_VALUE, null, threshold, 0), true)) {
+            // An item moving while we walk can show up at both places; only its current level counts
+            if (byItem.get(level.itemId()) != level) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            ids.add(level.itemId());
+            if (ids.size() == pageable.getPageSize()) {
+                break;
+            }
+        }
+        return SearchIndex.page(ids, total, pageable, itemRepository::findSummariesByIdIn, ItemSummary::id);
+    }
+
+
+    // Compares every item with the table. A mismatch is only repaired once two passes in a row
+    // have seen the same index entry and the same row, so a commit whose hook has not run yet
+    // is never overwritten. Returns the number of items repaired.
+    @Scheduled(fixedDelayString = "${marketplace.stock-index.reconcile-interval-ms:300000}",
+            initialDelayString = "${marketplace.stock-index.reconcile-interval-ms:300000}")
+    public synchronized int reconcile() {
+        if (!enabled) {
+            return 0;
+        }
+        Map<Long, Mismatch> found = new HashMap<>();
+        Roaring64Bitmap present = new Roaring64Bitmap();
+        Long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = itemRepository.findStockLevelsAfter(afterId, PageRequest.of(0, LOAD_CHUNK));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                Long sellerId = (Long) row[1];
+                int quantity = (Integer) row[2];
+                present.addLong(afterId);
+                Level current = byItem.get(afterId);
+                if (current == null || current.quantity() != quantity || !current.sellerId().equals(sellerId)) {
+                    found.put(afterId, new Mismatch(current, sellerId, quantity));
+                }
+            }
+        } while (rows.size() == LOAD_CHUNK);
+        for (Level level : byItem.values()) {
+            if (!present.contains(level.itemId())) {
+                found.put(level.itemId(), new Mismatch(level, null, 0));
+            }
+        }
+
+        int repaired = 0;
+        for (Map.Entry<Long, Mismatch> entry : found.entrySet()) {
+            Mismatch mismatch = entry.getValue();
+            if (!mismatch.equals(mismatches.get(entry.getKey()))) {
+                continue;
+            }
+            boolean[] applied = new boolean[1];
+            change(entry.getKey(), current -> {
+                if (!Objects.equals(current, mismatch.seen())) {
+                    return current;
+                }
+                applied[0] = true;
+                return mismatch.sellerId() == null ? null : level(entry.getKey(), mismatch.sellerId(), mismatch.quantity());
+            }, true, false);
+            if (applied[0]) {
+                repaired++;
+            }
+        }
+        found.entrySet().removeIf(entry -> entry.getValue().equals(mismatches.get(entry.getKey())));
+        mismatches = found;
+        if (repaired > 0) {
+            log.info("Reconciled stock index: repaired {} items", repaired);
+        }
+        return repaired;
+    }
+
+
+    private Level level(Long itemId, Long sellerId, int quantity) {
+        return new Level(itemId, sellerId, quantity, versions.incrementAndGet());
+    }
+
+
+    // Replaces the item's level with next(current), or drops it when next returns null, and
+    // moves it between the ordered sets. The map entry's lock serializes changes to one item.
+    // Repairs leave the in-stock count alone, since its own recount corrects it from the table.
+    private void change(Long itemId, UnaryOperator<Level> next, boolean notify, boolean count) {
+        Level[] moved = new Level[2];
+        byItem.compute(itemId, (id, before) -> {
+            Level after = next.apply(before);
+            if (after == before) {
+                return before;
+            }
+            if (before != null) {
+                unshelve(before);
+            }
+            if (after != null) {
+                shelve(after);
+            }
+            moved[0] = before;
+            moved[1] = after;
+            return after;
+        });
+        if (count) {
+            int stocked = moved[1] != null && moved[1].quantity() > 0 ? 1 : 0;
+            liveCounts.inStockChanged(stocked - (moved[0] != null && moved[0].quantity() > 0 ? 1 : 0));
+        }
+        if (notify && moved[1] != null) {
+            lowStockFeed.quantityChanged(itemId, moved[1].sellerId(),
+                    moved[0] == null ? null : moved[0].quantity(), moved[1].quantity());
+        }
+    }
+
+
+    private void shelve(Level level) {
+        all.add(level);
+        bySeller.compute(level.sellerId(), (id, shelf) -> {
+            Shelf result = shelf == null ? new Shelf() : shelf;
+            result.add(level);
+            return result;
+        });
+    }
+
+
+    private void unshelve(Level level) {
+        all.remove(level);
+        bySeller.computeIfPresent(level.sellerId(), (id, shelf) -> {
+            shelf.remove(level);
+            return shelf.isEmpty() ? null : shelf;
+        });
+    }
+
+
+    // Levels in quantity order, with the number of items at each quantity so counting the
+    // low ones visits quantities rather than items
+    private static final class Shelf {
+        private final ConcurrentSkipListSet<Level> levels = new ConcurrentSkipListSet<>(BY_QUANTITY);
+        private final ConcurrentSkipListMap<Integer, Integer> counts = new ConcurrentSkipListMap<>();
+
+        void add(Level level) {
+            levels.add(level);
+            counts.merge(level.quantity(), 1, Integer::sum);
+        }
+
+        void remove(Level level) {
+            if (levels.remove(level)) {
+                counts.merge(level.quantity(), -1, (count, minus) -> count + minus == 0 ? null : count + minus);
+            }
+        }
+
+        boolean isEmpty() {
+            return levels.isEmpty();
+        }
+
+        long countUpTo(int quantity) {
+            long total = 0;
+            for (int count : counts.headMap(quantity, true).values()) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+
+    // version tells apart two levels of the same item with the same quantity
+    private record Level(Long itemId, Long sellerId, int quantity, long version) {
+    }
+
+
+    // What one reconcile saw: the index entry (null when missing) and the row (null seller when gone)
+    private record Mismatch(Level seen, Long sellerId, int quantity) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.anycomp.marketplace.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+// Defers in-memory side effects until the surrounding transaction has finished
+final class TransactionHooks {
+    
+    private TransactionHooks() {}
+    
+    // Runs the action with true on commit and false on rollback; immediately with true outside a transaction
+    static void onCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+    
+    static void afterCommit(Runnable action) {
+        onCompletion(committed -> {
+            if (committed) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package com.anycomp.marketplace.controller;
+
+import com.anycomp.marketplace.config.AdaptiveConcurrencyFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "marketplace.concurrency.adaptive.enabled=true",
+        "marketplace.concurrency.adaptive.initial-limit=10",
+        "marketplace.concurrency.adaptive.min-limit=4",
+        "marketplace.concurrency.adaptive.max-limit=10",
+        "marketplace.concurrency.adaptive.stats-share=0.01",
+        "marketplace.concurrency.adaptive.window-ms=0",
+        "marketplace.concurrency.adaptive.min-window-samples=1"
+})
+@ActiveProfiles("test")
+// The tests share one limit; min-limit keeps browsing admissible next to the slow request
+// after serverErrorsBringTheLimitDown has pushed the limit to its floor
+class AdaptiveConcurrencyFilterTest {
+
+    @Autowired
+    private AdaptiveConcurrencyFilter filter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void statisticsAreShedBeforeCheckout() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Integer> slow = executor.submit(() -> run("GET", "/api/purchases/stats/count", (request, response) -> {
+            entered.countDown();
+            try {
+                finish.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).getStatus());
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        try {
+            MockHttpServletResponse shed = run("GET", "/api/sellers/1/revenue", (request, response) -> { });
+            assertEquals(503, shed.getStatus());
+            assertEquals("1", shed.getHeader("Retry-After"));
+
+            assertEquals(200, run("POST", "/api/purchases", (request, response) -> { }).getStatus());
+            assertEquals(200, run("GET", "/api/items", (request, response) -> { }).getStatus());
+        } finally {
+            finish.countDown();
+        }
+        assertEquals(200, slow.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void serverErrorsBringTheLimitDown() throws Exception {
+        double before = limit();
+        for (int i = 0; i < 20; i++) {
+            run("POST", "/api/purchases", (request, response) ->
+                    ((HttpServletResponse) response).setStatus(500));
+        }
+        assertTrue(limit() < before, "limit " + limit() + " should drop below " + before);
+        assertTrue(limit() >= 4);
+    }
+
+    private MockHttpServletResponse run(String method, String uri, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, uri), response, chain);
+        return response;
+    }
+
+    private double limit() {
+        return meterRegistry.get("marketplace.concurrency.limit").gauge().value();
+    }
+}
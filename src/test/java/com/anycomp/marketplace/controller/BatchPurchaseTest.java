@@ -0,0 +1,142 @@
+package com.anycomp.marketplace.controller;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchPurchaseTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchPurchaseTest.class);
+
+    private static final int COMPARISON_PURCHASES = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    private Seller seller;
+    private Long buyerId;
+
+    @BeforeEach
+    void seed() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        seller = sellerRepository.save(new Seller("Batch Seller", "batch-seller-" + run + "@example.com"));
+        buyerId = buyerRepository.save(new Buyer("Batch Buyer", "batch-buyer-" + run + "@example.com")).getId();
+    }
+
+    @Test
+    void failedLinesAreReportedWhileTheRestAreBought() throws Exception {
+        Long itemId = itemRepository.save(new Item("Batch Item", "Bought in bulk", 3.0, 5, seller)).getId();
+        String body = "["
+                + line(buyerId, itemId, 2) + ","
+                + line(-1L, itemId, 1) + ","
+                + line(buyerId, itemId, 0) + ","
+                + line(buyerId, itemId, 2) + ","
+                + line(buyerId, itemId, 4) + ","
+                + line(buyerId, Long.MAX_VALUE, 1) + "]";
+
+        mockMvc.perform(post("/api/purchases/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.total").value(6))
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.failed").value(4))
+                .andExpect(jsonPath("$.results[0].success").value(true))
+                .andExpect(jsonPath("$.results[0].purchase.totalPrice").value(6.0))
+                .andExpect(jsonPath("$.results[1].message").value("Buyer not found with id: -1"))
+                .andExpect(jsonPath("$.results[2].message").value("Quantity must be positive"))
+                .andExpect(jsonPath("$.results[3].success").value(true))
+                .andExpect(jsonPath("$.results[4].line").value(4))
+                .andExpect(jsonPath("$.results[4].message").value("Insufficient stock. Available: 1, Requested: 4"))
+                .andExpect(jsonPath("$.results[5].message", startsWith("Item not found with id: ")));
+
+        assertEquals(1, itemRepository.findQuantityById(itemId).orElseThrow());
+        assertEquals(2, purchaseRepository.findByItemId(itemId, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void emptyBatchIsRejected() throws Exception {
+        mockMvc.perform(post("/api/purchases/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    // One batch against the same purchases sent one request at a time; mvn -P load test
+    @Test
+    @Tag("load")
+    void batchIsFasterThanSinglePurchases() throws Exception {
+        Long singleItemId = itemRepository.save(new Item("Single Item", "One at a time", 1.0,
+                COMPARISON_PURCHASES, seller)).getId();
+        Long batchItemId = itemRepository.save(new Item("Bulk Item", "All at once", 1.0,
+                COMPARISON_PURCHASES, seller)).getId();
+
+        long singleStart = System.nanoTime();
+        for (int i = 0; i < COMPARISON_PURCHASES; i++) {
+            mockMvc.perform(post("/api/purchases").contentType(MediaType.APPLICATION_JSON)
+                            .content(line(buyerId, singleItemId, 1)))
+                    .andExpect(status().isCreated());
+        }
+        long singleNanos = System.nanoTime() - singleStart;
+
+        StringJoiner batch = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < COMPARISON_PURCHASES; i++) {
+            batch.add(line(buyerId, batchItemId, 1));
+        }
+        long batchStart = System.nanoTime();
+        mockMvc.perform(post("/api/purchases/batch").contentType(MediaType.APPLICATION_JSON).content(batch.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(COMPARISON_PURCHASES));
+        long batchNanos = System.nanoTime() - batchStart;
+
+        log.info("{} purchases: one at a time {} ms, one batch {} ms", COMPARISON_PURCHASES,
+                TimeUnit.NANOSECONDS.toMillis(singleNanos), TimeUnit.NANOSECONDS.toMillis(batchNanos));
+        assertEquals(0, itemRepository.findQuantityById(singleItemId).orElseThrow());
+        assertEquals(0, itemRepository.findQuantityById(batchItemId).orElseThrow());
+        assertTrue(batchNanos * 2 < singleNanos, "a batch should take well under half the time of single purchases");
+    }
+
+    private static String line(Long buyerId, Long itemId, int quantity) {
+        return "{\"buyerId\":" + buyerId + ",\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}";
+    }
+}
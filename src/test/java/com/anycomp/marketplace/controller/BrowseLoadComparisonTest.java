@@ -0,0 +1,83 @@
+package com.anycomp.marketplace.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The browse burst with a bounded Tomcat pool against virtual request threads gated only by
+ * the database permit filter. Needs Java 21+: on older runtimes spring.threads.virtual.enabled
+ * has no effect, so there is nothing to compare.
+ *
+ * Tagged "load": mvn -P load test
+ */
+@Tag("load")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class BrowseLoadComparisonTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BrowseLoadComparisonTest.class);
+
+    static final String PLATFORM = "Platform";
+    static final String VIRTUAL = "Virtual";
+
+    static final Map<String, LoadDriver.Stats> RESULTS = new ConcurrentHashMap<>();
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            BrowseLoadTestSupport.SMALL_POOL,
+            BrowseLoadTestSupport.SHORT_CONNECTION_TIMEOUT,
+            "server.tomcat.threads.max=50"
+    })
+    @ActiveProfiles("test")
+    class PlatformThreads extends BrowseLoadTestSupport {
+
+        @Override
+        String mode() {
+            return PLATFORM;
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            BrowseLoadTestSupport.SMALL_POOL,
+            BrowseLoadTestSupport.SHORT_CONNECTION_TIMEOUT,
+            "spring.threads.virtual.enabled=true",
+            "marketplace.concurrency.db-permits.enabled=true"
+    })
+    @ActiveProfiles("test")
+    class VirtualThreads extends BrowseLoadTestSupport {
+
+        @Override
+        String mode() {
+            return VIRTUAL;
+        }
+    }
+
+    // Parking requests in front of the pool must not cost throughput against the bounded pool
+    @AfterAll
+    static void compareModes() {
+        LoadDriver.Stats platform = RESULTS.get(PLATFORM);
+        LoadDriver.Stats virtual = RESULTS.get(VIRTUAL);
+        if (platform == null || virtual == null) {
+            return;
+        }
+        log.info(String.format("%s vs %s: %.2fx throughput, p99 %.1f ms vs %.1f ms", VIRTUAL, PLATFORM,
+                virtual.perSecond() / platform.perSecond(), virtual.p99Ms(), platform.p99Ms()));
+        assertTrue(virtual.perSecond() >= platform.perSecond(),
+                VIRTUAL + " " + virtual + " vs " + PLATFORM + " " + platform);
+    }
+}
@@ -0,0 +1,92 @@
+package com.anycomp.marketplace.controller;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Burst of concurrent clients mixing item browsing and purchases against a small
+// connection pool. BrowseLoadComparisonTest runs it once per threading mode and
+// compares the results.
+abstract class BrowseLoadTestSupport {
+
+    // Shared by both modes so the only difference is the threading model
+    static final String SMALL_POOL = "spring.datasource.hikari.maximum-pool-size=4";
+    static final String SHORT_CONNECTION_TIMEOUT = "spring.datasource.hikari.connection-timeout=5000";
+
+    private static final int CLIENTS = 200;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 5;
+    private static final int CATALOG_SIZE = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    abstract String mode();
+
+    @Test
+    void burstOfBrowsingAndPurchasesCompletes() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerRepository.save(new Seller("Load Seller", "load-seller-" + run + "@example.com"));
+        Buyer buyer = buyerRepository.save(new Buyer("Load Buyer", "load-buyer-" + run + "@example.com"));
+        List<Item> catalog = new ArrayList<>();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            catalog.add(new Item("Load Item " + i, "Browse", 1.0 + i, 1_000_000, seller));
+        }
+        Long itemId = itemRepository.saveAll(catalog).get(0).getId();
+        String purchaseBody = "{\"buyerId\":" + buyer.getId() + ",\"itemId\":" + itemId + ",\"quantity\":1}";
+        AtomicInteger failures = new AtomicInteger();
+
+        // Unmeasured first pass, so neither mode pays for class loading and JIT warm-up
+        burst(purchaseBody, WARMUP_REQUESTS_PER_CLIENT, new AtomicInteger(), null);
+        burst(purchaseBody, REQUESTS_PER_CLIENT, failures, mode() + " threads");
+        assertEquals(0, failures.get());
+    }
+
+    private void burst(String purchaseBody, int requestsPerClient, AtomicInteger failures, String title)
+            throws Exception {
+        try (LoadDriver driver = new LoadDriver(port, CLIENTS)) {
+            driver.run(client -> {
+                for (int r = 0; r < requestsPerClient; r++) {
+                    HttpResponse<String> response = (client + r) % 4 == 0
+                            ? driver.send("purchase", HttpRequest.newBuilder(driver.uri("/api/purchases"))
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(purchaseBody)).build())
+                            : driver.send("browse", HttpRequest.newBuilder(
+                                    driver.uri("/api/items?size=20&page=" + (client + r) % 10)).GET().build());
+                    if (response.statusCode() >= 300) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }, Duration.ofMinutes(5));
+            if (title != null) {
+                driver.report(title);
+                BrowseLoadComparisonTest.RESULTS.put(mode(), driver.overall());
+            }
+        }
+    }
+}
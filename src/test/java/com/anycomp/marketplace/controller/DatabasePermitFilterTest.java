@@ -0,0 +1,63 @@
+package com.anycomp.marketplace.controller;
+
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.SellerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "marketplace.concurrency.db-permits.enabled=true",
+        "marketplace.concurrency.db-permits=3"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DatabasePermitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Test
+    void streamedExportHoldsItsPermitUntilTheResponseCompletes() throws Exception {
+        MvcResult export = mockMvc.perform(get("/api/purchases/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(2, availablePermits(), "released when the first dispatch returned");
+
+        mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+        assertEquals(3, availablePermits());
+    }
+
+    @Test
+    void eventStreamReleasesItsPermitAfterSubscribing() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerRepository.save(new Seller("Permit Seller", "permit-seller-" + run + "@example.com"));
+
+        mockMvc.perform(get("/api/sellers/" + seller.getId() + "/low-stock/feed?threshold=1"))
+                .andExpect(request().asyncStarted());
+        assertEquals(3, availablePermits());
+    }
+
+    private double availablePermits() {
+        return meterRegistry.get("marketplace.db.permits.available").gauge().value();
+    }
+}
@@ -0,0 +1,172 @@
+package com.anycomp.marketplace.controller;
+
+import com.anycomp.marketplace.config.SqlStatsFilter;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.IdempotencyRecord;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.IdempotencyRecordRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import com.anycomp.marketplace.service.IdempotentRequests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotentPurchaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private Long buyerId;
+    private Long itemId;
+
+    @BeforeEach
+    void seed() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerRepository.save(new Seller("Retry Seller", "retry-seller-" + run + "@example.com"));
+        buyerId = buyerRepository.save(new Buyer("Retry Buyer", "retry-buyer-" + run + "@example.com")).getId();
+        itemId = itemRepository.save(new Item("Retry Item", "Bought on a flaky network", 2.0, 100, seller)).getId();
+    }
+
+    @Test
+    void retryReplaysTheFirstResponseWithoutTouchingTheDatabase() throws Exception {
+        String key = UUID.randomUUID().toString();
+        MvcResult first = purchase(key, 2).andExpect(status().isCreated()).andReturn();
+        MvcResult retry = purchase(key, 2).andExpect(status().isCreated()).andReturn();
+
+        assertNull(first.getResponse().getHeader(IdempotentRequests.REPLAYED_HEADER));
+        assertEquals("true", retry.getResponse().getHeader(IdempotentRequests.REPLAYED_HEADER));
+        assertEquals("0", retry.getResponse().getHeader(SqlStatsFilter.STATEMENTS_HEADER));
+        assertEquals(first.getResponse().getContentAsString(), retry.getResponse().getContentAsString());
+        assertEquals(1, purchaseCount());
+        assertEquals(98, itemRepository.findQuantityById(itemId).orElseThrow());
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        purchase(key, 1).andExpect(status().isCreated());
+        purchase(key, 3).andExpect(status().isUnprocessableEntity());
+        assertEquals(1, purchaseCount());
+    }
+
+    @Test
+    void persistedKeyIsReplayedAfterARestart() throws Exception {
+        String key = UUID.randomUUID().toString();
+        idempotencyRecordRepository.save(new IdempotencyRecord("buyer:" + buyerId, key, buyerId + ":" + itemId + ":1",
+                201, "{\"success\":true,\"message\":\"Purchase created successfully\"}"));
+
+        MvcResult retry = purchase(key, 1).andExpect(status().isCreated()).andReturn();
+        assertEquals("true", retry.getResponse().getHeader(IdempotentRequests.REPLAYED_HEADER));
+        assertEquals(0, purchaseCount());
+    }
+
+    @Test
+    void sameKeyFromAnotherBuyerIsNotReplayed() throws Exception {
+        String key = UUID.randomUUID().toString();
+        purchase(key, 1).andExpect(status().isCreated());
+
+        Long otherBuyerId = buyerRepository.save(new Buyer("Other Buyer",
+                "other-buyer-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com")).getId();
+        MvcResult other = purchase(otherBuyerId, key, 1).andExpect(status().isCreated()).andReturn();
+        assertNull(other.getResponse().getHeader(IdempotentRequests.REPLAYED_HEADER));
+        assertEquals(2, purchaseCount());
+    }
+
+    @Test
+    void storedRecordIsNeverOverwritten() {
+        String key = UUID.randomUUID().toString();
+        String scope = "buyer:" + buyerId;
+        idempotencyRecordRepository.save(new IdempotencyRecord(scope, key, "first", 201, "{\"first\":true}"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> idempotencyRecordRepository.save(
+                new IdempotencyRecord(scope, key, "second", 201, "{\"second\":true}")));
+        IdempotencyRecord stored = idempotencyRecordRepository
+                .findById(new IdempotencyRecord.RecordId(scope, key)).orElseThrow();
+        assertEquals("first", stored.getFingerprint());
+        assertEquals("{\"first\":true}", stored.getBody());
+    }
+
+    @Test
+    void concurrentDuplicatesBuyOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int clients = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            statuses.add(executor.submit(() -> {
+                start.await();
+                return purchase(key, 1).andReturn().getResponse().getStatus();
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> result : statuses) {
+            assertEquals(201, result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, purchaseCount());
+        assertEquals(99, itemRepository.findQuantityById(itemId).orElseThrow());
+    }
+
+    private ResultActions purchase(String key, int quantity) throws Exception {
+        return purchase(buyerId, key, quantity);
+    }
+
+    private ResultActions purchase(Long buyerId, String key, int quantity) throws Exception {
+        return mockMvc.perform(post("/api/purchases")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"buyerId\":" + buyerId + ",\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}"));
+    }
+
+    private long purchaseCount() {
+        return purchaseRepository.findByItemId(itemId, PageRequest.of(0, 10)).getTotalElements();
+    }
+}
@@ -0,0 +1,178 @@
+package com.anycomp.marketplace.controller;
+
+import com.anycomp.marketplace.config.RequestSqlStats;
+import com.anycomp.marketplace.config.SqlStatsFilter;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pins the number of SQL statements each list endpoint runs. Every list is a single
+// projection query plus its count query, no matter how many items or purchases hang
+// off the rows; a lazy-loading regression shows up here as a higher count, and the
+// fail-on-threshold mode turns any N+1 past the limit into a failed request.
+@SpringBootTest(properties = {
+        "marketplace.sql.n-plus-one.fail=true",
+        "marketplace.sql.n-plus-one.threshold=5"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListEndpointStatementCountTest {
+
+    private static final int PAGE_AND_COUNT = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long sellerId;
+    private Long buyerId;
+
+    @BeforeEach
+    void seed() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Buyer buyer = buyerRepository.save(new Buyer("Buyer " + run, "buyer-" + run + "@example.com"));
+        for (int s = 0; s < 3; s++) {
+            Seller seller = sellerRepository.save(new Seller("Seller " + s, "seller-" + s + "-" + run + "@example.com"));
+            for (int i = 0; i < 3; i++) {
+                Item item = itemRepository.save(new Item("Item " + s + "-" + i, "Seeded", 5.0, 100, seller));
+                purchaseRepository.save(new Purchase(buyer, item, 1));
+                purchaseRepository.save(new Purchase(buyer, item, 2));
+            }
+            sellerId = seller.getId();
+        }
+        buyerId = buyer.getId();
+        buyerRepository.save(new Buyer("Second " + run, "second-" + run + "@example.com"));
+    }
+
+    @Test
+    void sellerListsRunPageAndCountOnly() throws Exception {
+        assertStatements("/api/sellers?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/sellers/with-items?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/sellers/with-sales?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/sellers/scroll?size=2", 1);
+    }
+
+    @Test
+    void buyerListsRunPageAndCountOnly() throws Exception {
+        assertStatements("/api/buyers?size=1", PAGE_AND_COUNT);
+        assertStatements("/api/buyers/with-purchases?size=1", PAGE_AND_COUNT);
+        assertStatements("/api/buyers/scroll?size=1", 1);
+    }
+
+    @Test
+    void itemListsRunPageAndCountOnly() throws Exception {
+        assertStatements("/api/items?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/items/available?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/items/price/asc?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/items/seller/" + sellerId + "?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/items/seller/" + sellerId + "/available?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/items/scroll?size=2", 1);
+        assertStatements("/api/items/seller/" + sellerId + "/scroll?size=2", 1);
+        mockMvc.perform(get("/api/items/seller/" + sellerId + "/scroll?size=2"))
+                .andExpect(jsonPath("$.content[0].name").value("Item 2-0"))
+                .andExpect(jsonPath("$.content[0].sellerId").value(sellerId));
+    }
+
+    @Test
+    void detailEndpointsLoadOneScalarRow() throws Exception {
+        // The id caches hold summaries, so a miss is one projection query and a hit none
+        assertStatements("/api/sellers/" + sellerId, 1);
+        assertStatements("/api/sellers/" + sellerId, 0);
+        assertStatements("/api/buyers/" + buyerId, 1);
+    }
+
+    @Test
+    void purchaseListsRunPageAndCountOnly() throws Exception {
+        assertStatements("/api/purchases/buyer/" + buyerId + "?size=2", PAGE_AND_COUNT);
+        assertStatements("/api/sellers/" + sellerId + "/sales?size=2", PAGE_AND_COUNT + 1);
+        assertStatements("/api/purchases/scroll?size=2", 1);
+        assertStatements("/api/purchases/recent/scroll?size=2", 1);
+        assertStatements("/api/purchases/date-range/scroll?startDate=2000-01-01T00:00:00"
+                + "&endDate=2999-01-01T00:00:00&size=2", 1);
+    }
+
+    @Test
+    void scrollFollowsTheCursorAndRejectsAMalformedOne() throws Exception {
+        String first = mockMvc.perform(get("/api/purchases/recent/scroll?size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+        String next = JsonPath.read(first, "$.nextCursor");
+        mockMvc.perform(get("/api/purchases/recent/scroll?size=2&after=" + next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2));
+
+        mockMvc.perform(get("/api/purchases/buyer/" + buyerId + "/scroll?size=1"))
+                .andExpect(jsonPath("$.content[0].buyerId").value(buyerId))
+                .andExpect(jsonPath("$.content[0].itemName").value("Item 2-2"))
+                .andExpect(jsonPath("$.content[0].sellerId").value(sellerId));
+
+        mockMvc.perform(get("/api/purchases/recent/scroll?after=not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"));
+    }
+
+    @Test
+    void purchasePagesAreOneProjectionQuery() {
+        // The seller has 6 purchases; a page larger than that lets Spring Data skip the count query
+        RequestSqlStats.Snapshot sql = RequestSqlStats.measure(() -> transactionTemplate.executeWithoutResult(status ->
+                assertEquals(6, purchaseRepository
+                        .findByItemSellerId(sellerId, PageRequest.of(0, 10, Sort.by("purchaseDate").descending()))
+                        .getNumberOfElements())));
+        assertEquals(1, sql.statements());
+        assertNull(sql.hottestAssociation());
+    }
+
+    @Test
+    void lazyCollectionLoadsAreTracedToTheirAssociation() {
+        RequestSqlStats.Snapshot sql = RequestSqlStats.measure(() -> transactionTemplate.executeWithoutResult(status ->
+                sellerRepository.findById(sellerId).orElseThrow().getItems().size()));
+        assertEquals(2, sql.statements());
+        assertEquals(Seller.class.getName() + ".items x1", sql.hottestAssociation());
+    }
+
+    private void assertStatements(String url, long expected) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        String statements = result.getResponse().getHeader(SqlStatsFilter.STATEMENTS_HEADER);
+        assertEquals(expected, Long.parseLong(statements), "SQL statements for " + url);
+    }
+}
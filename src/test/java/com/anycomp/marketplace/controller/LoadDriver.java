@@ -0,0 +1,136 @@
+package com.anycomp.marketplace.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Load harness shared by the load tests: a fixed set of client threads released together
+// against the embedded server, with response latencies recorded per request label.
+// Owns its thread pools, so use it in try-with-resources.
+final class LoadDriver implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadDriver.class);
+
+    private final int port;
+    private final int clients;
+    private final ExecutorService clientThreads;
+    private final ExecutorService httpThreads = Executors.newFixedThreadPool(16);
+    private final HttpClient http;
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private long elapsedNanos;
+
+    @FunctionalInterface
+    interface ClientLoop {
+        void run(int client) throws Exception;
+    }
+
+    LoadDriver(int port, int clients) {
+        this.port = port;
+        this.clients = clients;
+        this.clientThreads = Executors.newFixedThreadPool(clients);
+        this.http = HttpClient.newBuilder()
+                .executor(httpThreads)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    // Sends from the calling client thread and records the latency under label
+    HttpResponse<String> send(String label, HttpRequest request) throws Exception {
+        long begin = System.nanoTime();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        long elapsed = System.nanoTime() - begin;
+        List<Long> samples = latencies.computeIfAbsent(label, key -> new ArrayList<>());
+        synchronized (samples) {
+            samples.add(elapsed);
+        }
+        return response;
+    }
+
+    // Starts every client at once and waits for all of them
+    void run(ClientLoop loop, Duration timeout) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            futures.add(clientThreads.submit(() -> {
+                start.await();
+                loop.run(client);
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long deadline = begin + timeout.toNanos();
+        for (Future<?> future : futures) {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        elapsedNanos = System.nanoTime() - begin;
+    }
+
+    Stats stats(String label) {
+        return Stats.of(latencies.getOrDefault(label, List.of()), elapsedNanos);
+    }
+
+    Stats overall() {
+        List<Long> all = new ArrayList<>();
+        latencies.values().forEach(all::addAll);
+        return Stats.of(all, elapsedNanos);
+    }
+
+    void report(String title) {
+        log.info("{}: {}", title, overall());
+        new TreeMap<>(latencies).keySet().forEach(label -> log.info("  {}: {}", label, stats(label)));
+    }
+
+    @Override
+    public void close() {
+        clientThreads.shutdownNow();
+        httpThreads.shutdownNow();
+    }
+
+
+    record Stats(int requests, long elapsedNanos, double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        static Stats of(List<Long> samples, long elapsedNanos) {
+            long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+            return new Stats(sorted.length, elapsedNanos, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0));
+        }
+
+        double perSecond() {
+            return elapsedNanos == 0 ? 0 : requests / (elapsedNanos / 1e9);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %d ms (%.0f req/s), p50 %.1f ms, p99 %.1f ms, p999 %.1f ms, max %.1f ms",
+                    requests, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), perSecond(), p50Ms, p99Ms, p999Ms, maxMs);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.anycomp.marketplace.controller;
+
+import com.anycomp.marketplace.dto.BestSeller;
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import com.anycomp.marketplace.service.DataFormat;
+import com.anycomp.marketplace.service.InventoryEngine;
+import com.anycomp.marketplace.service.ItemImporter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load and contention run against the full application on embedded H2.
+ *
+ * Seeds a catalog with little stock per item, then drives purchases, browsing and search
+ * concurrently over HTTP and checks that no item was oversold: for every item, remaining
+ * quantity plus sold quantity equals the initial stock. Tagged {@code load}, so it only runs
+ * with the load profile; a release run scales it with system properties, e.g.
+ *
+ *   mvn -P load test -Dtest=LoadHarnessTest -Dload.catalog-size=5000 -Dload.clients=400
+ *       -Dload.requests-per-client=500 -Dload.mix=purchase:40,browse:40,search:20
+ *
+ * Other knobs: {@code load.stock-per-item}, {@code load.hot-items} (share of purchases that
+ * target the first few items) and {@code load.inventory-engine}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "marketplace.inventory.engine.enabled=${load.inventory-engine:false}"
+})
+@ActiveProfiles("test")
+@Tag("load")
+class LoadHarnessTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadHarnessTest.class);
+
+    private static final int CATALOG_SIZE = Integer.getInteger("load.catalog-size", 300);
+    private static final int STOCK_PER_ITEM = Integer.getInteger("load.stock-per-item", 20);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 64);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("load.requests-per-client", 50);
+    private static final int HOT_ITEMS_PERCENT = Integer.getInteger("load.hot-items", 50);
+    private static final String MIX = System.getProperty("load.mix", "purchase:40,browse:40,search:20");
+
+    private static final int HOT_ITEMS = 5;
+    private static final String[] WORDS = {"lamp", "chair", "table", "kettle", "mirror", "rug", "shelf", "clock"};
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private ItemImporter itemImporter;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private enum Operation { PURCHASE, BROWSE, SEARCH }
+
+    @Test
+    void mixedLoadNeverOversells() throws Exception {
+        Operation[] schedule = schedule(MIX);
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerRepository.save(new Seller("Harness Seller", "harness-seller-" + run + "@example.com"));
+        List<Long> buyerIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            buyerIds.add(buyerRepository.save(new Buyer("Harness Buyer " + i, "harness-buyer-" + i + "-" + run + "@example.com")).getId());
+        }
+        List<Long> itemIds = seedCatalog(seller.getId());
+        assertEquals(CATALOG_SIZE, itemIds.size());
+
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicLong acceptedQuantity = new AtomicLong();
+
+        try (LoadDriver driver = new LoadDriver(port, CLIENTS)) {
+            driver.run(clientId -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                    Operation operation = schedule[(clientId * REQUESTS_PER_CLIENT + r) % schedule.length];
+                    HttpRequest request;
+                    int quantity = 1 + random.nextInt(3);
+                    switch (operation) {
+                        case PURCHASE -> {
+                            Long itemId = random.nextInt(100) < HOT_ITEMS_PERCENT
+                                    ? itemIds.get(random.nextInt(Math.min(HOT_ITEMS, itemIds.size())))
+                                    : itemIds.get(random.nextInt(itemIds.size()));
+                            String body = "{\"buyerId\":" + buyerIds.get(random.nextInt(buyerIds.size()))
+                                    + ",\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}";
+                            request = HttpRequest.newBuilder(driver.uri("/api/purchases"))
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+                        }
+                        case BROWSE -> request = HttpRequest.newBuilder(driver.uri(
+                                "/api/items?size=20&page=" + random.nextInt(Math.max(1, CATALOG_SIZE / 20)))).GET().build();
+                        default -> request = HttpRequest.newBuilder(driver.uri(
+                                "/api/items/search?name=" + WORDS[random.nextInt(WORDS.length)] + "&size=20")).GET().build();
+                    }
+
+                    HttpResponse<String> response = driver.send(operation.name().toLowerCase(), request);
+                    if (operation == Operation.PURCHASE && response.statusCode() == 201) {
+                        acceptedQuantity.addAndGet(quantity);
+                    } else if (operation == Operation.PURCHASE && isOutOfStock(response)) {
+                        soldOut.incrementAndGet();
+                    } else if (response.statusCode() >= 300) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }, Duration.ofMinutes(30));
+
+            driver.report(String.format("Load harness, %d clients, catalog %d x %d stock",
+                    CLIENTS, CATALOG_SIZE, STOCK_PER_ITEM));
+        }
+        log.info("Purchases accepted for {} units, {} rejected as out of stock, {} other failures",
+                acceptedQuantity.get(), soldOut.get(), failures.get());
+
+        assertEquals(0, failures.get());
+        assertStockConserved(itemIds, acceptedQuantity.get());
+    }
+
+    // Imported rather than saved through the repository so the search index and inventory engine see the catalog
+    private List<Long> seedCatalog(Long sellerId) throws Exception {
+        StringBuilder csv = new StringBuilder("name,description,price,quantity\n");
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            csv.append(WORDS[i % WORDS.length]).append(' ').append(i).append(",Load harness item,")
+                    .append(5 + i % 95).append(',').append(STOCK_PER_ITEM).append('\n');
+        }
+        itemImporter.importItems(sellerId, DataFormat.CSV,
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        return itemRepository.findBySellerId(sellerId, PageRequest.of(0, CATALOG_SIZE + 1)).stream()
+                .map(ItemSummary::id).sorted().toList();
+    }
+
+    private void assertStockConserved(List<Long> itemIds, long acceptedQuantity) {
+        if (inventoryEngine.isEnabled()) {
+            inventoryEngine.flush();
+        }
+        Map<Long, Long> sold = new HashMap<>();
+        for (BestSeller row : purchaseRepository.findAllBestSellers()) {
+            sold.put(row.itemId(), row.totalQuantity());
+        }
+        long soldTotal = 0;
+        for (Long itemId : itemIds) {
+            int remaining = itemRepository.findById(itemId).orElseThrow().getQuantity();
+            long soldQuantity = sold.getOrDefault(itemId, 0L);
+            assertTrue(remaining >= 0, "Negative stock for item " + itemId);
+            assertEquals(STOCK_PER_ITEM, remaining + soldQuantity, "Stock not conserved for item " + itemId);
+            soldTotal += soldQuantity;
+        }
+        assertEquals(acceptedQuantity, soldTotal);
+    }
+
+    // Request types in proportion to a mix like "purchase:40,browse:40,search:20"
+    private static Operation[] schedule(String mix) {
+        List<Operation> schedule = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] weight = part.trim().split(":");
+            Operation operation = Operation.valueOf(weight[0].trim().toUpperCase());
+            for (int i = Integer.parseInt(weight[1].trim()); i > 0; i--) {
+                schedule.add(operation);
+            }
+        }
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("load.mix must give at least one request type a positive weight");
+        }
+        // Fixed seed: requests of one client vary in type, and runs stay comparable
+        Collections.shuffle(schedule, new Random(42));
+        return schedule.toArray(Operation[]::new);
+    }
+
+    // A purchase refused for stock, as opposed to any other 400
+    private boolean isOutOfStock(HttpResponse<String> response) throws Exception {
+        if (response.statusCode() != 400) {
+            return false;
+        }
+        JsonNode message = objectMapper.readTree(response.body()).path("message");
+        return message.asText().startsWith("Insufficient stock.");
+    }
+}
@@ -0,0 +1,83 @@
+package com.anycomp.marketplace.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "marketplace.ratelimit.enabled=true",
+        "marketplace.ratelimit.validate.capacity=2",
+        "marketplace.ratelimit.validate.refill-per-second=0.1",
+        "marketplace.ratelimit.search.capacity=3",
+        "marketplace.ratelimit.search.refill-per-second=0.1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void buyersBehindOneAddressHaveTheirOwnBuckets() throws Exception {
+        long buyerId = ThreadLocalRandom.current().nextLong(1_000_000, 2_000_000);
+        validate(buyerId, "10.0.1.1").andExpect(status().isOk()).andExpect(jsonPath("$.valid").value(false));
+        validate(buyerId, "10.0.1.1").andExpect(status().isOk());
+        validate(buyerId, "10.0.1.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"));
+
+        // Another buyer behind the same balancer address is unaffected
+        validate(buyerId + 1, "10.0.1.1").andExpect(status().isOk());
+        validate(buyerId + 1, "10.0.1.1").andExpect(status().isOk());
+    }
+
+    @Test
+    void buyerInTheBodyIsLimitedAcrossAddresses() throws Exception {
+        long buyerId = ThreadLocalRandom.current().nextLong(2_000_000, 3_000_000);
+        validate(buyerId, "10.0.2.1").andExpect(status().isOk());
+        validate(buyerId, "10.0.2.2").andExpect(status().isOk());
+        validate(buyerId, "10.0.2.3").andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void anonymousSearchIsLimitedByAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/sellers/search").param("name", "limited").with(remote("10.0.0.7")))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/sellers/search").param("name", "limited").with(remote("10.0.0.7")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+        mockMvc.perform(get("/api/sellers/search").param("name", "limited").with(remote("10.0.0.8")))
+                .andExpect(status().isOk());
+    }
+
+    private ResultActions validate(long buyerId, String address) throws Exception {
+        return mockMvc.perform(post("/api/purchases/validate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"buyerId\":" + buyerId + ",\"itemId\":1,\"quantity\":1}")
+                .with(remote(address)));
+    }
+
+    private static RequestPostProcessor remote(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.BestSeller;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BestSellerBoardTest {
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Test
+    void boardFollowsSalesCancellationsAndRenames() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Board Seller", "board-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Board Buyer", "board-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Board Item", "Best seller", 1.0, 100_000, null), seller.getId());
+
+        Purchase first = purchaseService.buyItem(buyer.getId(), item.getId(), 40_000);
+        purchaseService.buyItems(List.of(new PurchaseService.PurchaseLine(buyer.getId(), item.getId(), 20_000)));
+        assertEquals(new BestSeller(item.getId(), "Board Item", 60_000L), purchaseService.getMostPurchasedItems(1).get(0));
+
+        purchaseService.cancelPurchase(first.getId());
+        Item renamed = new Item("Renamed Board Item", "Best seller", 1.0, 40_000, null);
+        itemService.updateItem(item.getId(), renamed);
+        assertEquals(new BestSeller(item.getId(), "Renamed Board Item", 20_000L), purchaseService.getMostPurchasedItems(1).get(0));
+
+        List<BestSeller> top = purchaseService.getMostPurchasedItems(3);
+        assertTrue(top.size() <= 3);
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).totalQuantity() >= top.get(i).totalQuantity());
+        }
+    }
+}
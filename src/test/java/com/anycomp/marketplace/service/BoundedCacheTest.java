@@ -0,0 +1,135 @@
+package com.anycomp.marketplace.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTest {
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedPastTheSizeBound() {
+        // One entry per segment; keys 0 and 16 share a segment
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 16, Duration.ofMinutes(1));
+        cache.put(0L, "a");
+        cache.put(16L, "b");
+
+        assertFalse(cache.getIfPresent(0L).isPresent());
+        assertEquals(Optional.of("b"), cache.getIfPresent(16L));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void expiredEntriesAreLoadedAgain() throws Exception {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 100, Duration.ofMillis(20));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> Optional.of("v" + loads.incrementAndGet()));
+        assertEquals(Optional.of("v1"), cache.get(1L, id -> Optional.of("v" + loads.incrementAndGet())));
+        Thread.sleep(40);
+        assertEquals(Optional.of("v2"), cache.get(1L, id -> Optional.of("v" + loads.incrementAndGet())));
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void missingValuesAreNotCached() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 100, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        cache.get(1L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationDropsTheEntryAndAnyLoadThatRacedWithIt() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 100, Duration.ofMinutes(1));
+        cache.put(1L, "old");
+        cache.invalidate(1L);
+        assertFalse(cache.getIfPresent(1L).isPresent());
+
+        // The load read the row before the write committed, so its value must not be kept
+        cache.get(2L, id -> {
+            cache.invalidate(2L);
+            return Optional.of("stale");
+        });
+        assertFalse(cache.getIfPresent(2L).isPresent());
+    }
+
+    @Test
+    void updateRewritesTheEntryInPlaceAndAlsoFencesRacingLoads() {
+        BoundedCache<Long, Integer> cache = new BoundedCache<>("test", 100, Duration.ofMinutes(1));
+        cache.put(1L, 10);
+        cache.update(1L, stock -> stock - 3);
+        assertEquals(Optional.of(7), cache.getIfPresent(1L));
+
+        cache.update(2L, stock -> stock - 3);
+        assertFalse(cache.getIfPresent(2L).isPresent());
+
+        cache.get(3L, id -> {
+            cache.update(3L, stock -> stock - 1);
+            return Optional.of(10);
+        });
+        assertFalse(cache.getIfPresent(3L).isPresent());
+    }
+
+    @Test
+    void onlyTheLoadingCallerCachesACoalescedLoad() throws Exception {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 100, Duration.ofMinutes(1));
+        SingleFlight<Long, Optional<String>> loads = new SingleFlight<>("test", Duration.ofSeconds(10), id -> "id");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<String>> leader = pool.submit(() -> cache.get(1L, loads, id -> {
+                loading.countDown();
+                await(release);
+                return Optional.of("before write");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // A write lands while the leader is mid-query, then a reader joins its flight
+            cache.invalidate(1L);
+            Future<Optional<String>> waiter = pool.submit(() -> cache.get(1L, loads, id -> Optional.of("own load")));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(Optional.of("before write"), leader.get(5, TimeUnit.SECONDS));
+            assertEquals(Optional.of("before write"), waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(Optional.of("after write"), cache.get(1L, loads, id -> Optional.of("after write")));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void clearEmptiesEverySegment() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 100, Duration.ofMinutes(1));
+        for (long id = 0; id < 50; id++) {
+            cache.put(id, "v" + id);
+        }
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertTrue(cache.getIfPresent(7L).isEmpty());
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
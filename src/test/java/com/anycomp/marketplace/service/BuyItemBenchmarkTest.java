@@ -0,0 +1,132 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compares buyItem on one hot item, which takes stock with a conditional UPDATE,
+// with the read-modify-write it replaced: read the item under a row lock and check
+// the quantity in Java before writing it. The baseline runs buyItem in the same
+// transaction after that read, so everything but the stock step is the same code.
+// Tagged load, so it only runs with mvn -P load test.
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("load")
+class BuyItemBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BuyItemBenchmarkTest.class);
+
+    private static final int THREADS = 32;
+    private static final int PURCHASES_PER_THREAD = 100;
+    private static final int PURCHASES = THREADS * PURCHASES_PER_THREAD;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void conditionalUpdateBuysAHotItemFasterThanReadModifyWrite() throws Exception {
+        Seller seller = sellerRepository.save(new Seller("Bench Seller", "buy-bench-seller@example.com"));
+        Long buyerId = buyerRepository.save(new Buyer("Bench Buyer", "buy-bench-buyer@example.com")).getId();
+        // Stock for a warm-up round and a measured round
+        Long baselineItemId = itemRepository.save(new Item("Baseline Item", null, 1.0, 2 * PURCHASES, seller)).getId();
+        Long hotItemId = itemRepository.save(new Item("Hot Item", null, 1.0, 2 * PURCHASES, seller)).getId();
+
+        // The first round warms both paths up so neither is measured before the JIT has compiled it
+        double baselineRate = 0;
+        double buyItemRate = 0;
+        for (int round = 0; round < 2; round++) {
+            baselineRate = run("read-modify-write", i -> buyWithReadModifyWrite(buyerId, baselineItemId));
+            buyItemRate = run("buyItem", i -> purchaseService.buyItem(buyerId, hotItemId, 1));
+        }
+
+        assertEquals(0, itemRepository.findQuantityById(baselineItemId).orElseThrow());
+        assertEquals(0, itemRepository.findQuantityById(hotItemId).orElseThrow());
+        assertTrue(buyItemRate > baselineRate,
+                "buyItem should buy a hot item faster than the locked read-modify-write");
+    }
+
+    // The locked read and Java-side check buyItem made before the conditional UPDATE
+    private void buyWithReadModifyWrite(Long buyerId, Long itemId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Item item = entityManager.find(Item.class, itemId, LockModeType.PESSIMISTIC_WRITE);
+            if (item.getQuantity() < 1) {
+                throw new RuntimeException("Insufficient stock. Available: " + item.getQuantity() + ", Requested: 1");
+            }
+            purchaseService.buyItem(buyerId, itemId, 1);
+        });
+    }
+
+
+    // Purchases per second; every attempt must succeed
+    private double run(String label, LongConsumer purchase) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            Callable<Void> worker = () -> {
+                start.await();
+                for (int i = 0; i < PURCHASES_PER_THREAD; i++) {
+                    purchase.accept(i);
+                }
+                return null;
+            };
+            futures.add(executor.submit(worker));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        double rate = PURCHASES / (elapsedNanos / 1_000_000_000.0);
+        log.info("{}: {} purchases in {} ms ({} purchases/s)", label, PURCHASES,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(rate));
+        return rate;
+    }
+}
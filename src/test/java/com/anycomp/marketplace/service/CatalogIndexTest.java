@@ -0,0 +1,186 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.CursorPage;
+import com.anycomp.marketplace.dto.ItemFilter;
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.exception.InvalidRequestException;
+import com.anycomp.marketplace.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogIndexTest {
+
+    private static final double[] PRICES = {0.5, 1.0, 1.0, 2.5, 3.0, 10.0, 10.0, 19.99, 50.0, 100.0, 0.009, 1000.0};
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private Long sellerId;
+    private List<Item> items;
+
+    @BeforeEach
+    void seed() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        sellerId = sellerService.createSeller(new Seller("Catalog Seller", "catalog-" + run + "@example.com")).getId();
+        items = new ArrayList<>();
+        for (int i = 0; i < PRICES.length; i++) {
+            items.add(itemService.createItem(new Item("Catalog " + i, "Filtered", PRICES[i], i % 4, null), sellerId));
+        }
+    }
+
+    @Test
+    void combinedFiltersMatchTheEquivalentSql() {
+        List<ItemFilter> filters = new ArrayList<>();
+        for (ItemFilter.Sort sort : ItemFilter.Sort.values()) {
+            filters.add(new ItemFilter(sellerId, null, null, null, null, sort));
+            filters.add(new ItemFilter(sellerId, true, null, null, null, sort));
+            filters.add(new ItemFilter(sellerId, false, 1.0, null, null, sort));
+            filters.add(new ItemFilter(sellerId, null, 1.0, 19.99, null, sort));
+            filters.add(new ItemFilter(sellerId, true, 0.75, 60.0, 2, sort));
+        }
+        for (ItemFilter filter : filters) {
+            assertEquals(sql(filter), walk(filter), filter.toString());
+        }
+    }
+
+    @Test
+    void salesCancellationsAndEditsMoveItemsBetweenFacets() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Buyer buyer = buyerService.createBuyer(new Buyer("Catalog Buyer", "catalog-buyer-" + run + "@example.com"));
+        Item lastOne = items.get(1);
+        ItemFilter inStock = new ItemFilter(sellerId, true, null, null, null, ItemFilter.Sort.ID);
+        assertTrue(walk(inStock).contains(lastOne.getId()));
+
+        Purchase purchase = purchaseService.buyItem(buyer.getId(), lastOne.getId(), 1);
+        assertFalse(walk(inStock).contains(lastOne.getId()));
+
+        purchaseService.cancelPurchase(purchase.getId());
+        assertTrue(walk(inStock).contains(lastOne.getId()));
+
+        Item repriced = items.get(0);
+        repriced.setPrice(500.0);
+        itemService.updateItem(repriced.getId(), repriced);
+        ItemFilter expensive = new ItemFilter(sellerId, null, 400.0, null, null, ItemFilter.Sort.PRICE_DESC);
+        assertEquals(List.of(items.get(11).getId(), repriced.getId()), walk(expensive));
+
+        itemService.deleteItem(repriced.getId());
+        assertEquals(List.of(items.get(11).getId()), walk(expensive));
+        for (ItemFilter.Sort sort : ItemFilter.Sort.values()) {
+            ItemFilter all = new ItemFilter(sellerId, null, null, null, null, sort);
+            assertEquals(sql(all), walk(all));
+        }
+    }
+
+    @Test
+    void rowsDeletedBehindTheIndexDoNotEndTheListingEarly() {
+        ItemFilter all = new ItemFilter(sellerId, null, null, null, null, ItemFilter.Sort.ID);
+        List<Long> gone = List.of(items.get(0).getId(), items.get(1).getId());
+        // Deleted underneath the index, as if between its lookup and the row read
+        itemRepository.deleteAllById(gone);
+        try {
+            CursorPage<ItemSummary> first = itemService.filterItems(all, null, 2);
+            assertTrue(first.getContent().isEmpty());
+            assertTrue(first.isHasNext());
+            assertEquals(sql(all), walk(all));
+        } finally {
+            gone.forEach(catalogIndex::untrack);
+        }
+    }
+
+    @Test
+    void anIdCursorIsRejectedForPriceOrder() {
+        String idCursor = itemService.filterItems(
+                new ItemFilter(sellerId, null, null, null, null, ItemFilter.Sort.ID), null, 2).getNextCursor();
+        ItemFilter byPrice = new ItemFilter(sellerId, null, null, null, null, ItemFilter.Sort.PRICE_ASC);
+        assertThrows(InvalidRequestException.class, () -> itemService.filterItems(byPrice, idCursor, 2));
+    }
+
+    @Test
+    void largeIdsCostOneEntryNotAnArrayUpToTheId() {
+        long farId = Integer.MAX_VALUE - 1L;
+        catalogIndex.track(farId, sellerId, 7.0, 3);
+        try {
+            ItemFilter filter = new ItemFilter(sellerId, true, 6.0, 8.0, null, ItemFilter.Sort.ID);
+            assertEquals(List.of(new CatalogIndex.Match(farId, 7.0)), catalogIndex.filter(filter, null, null, 10));
+        } finally {
+            catalogIndex.untrack(farId);
+        }
+        assertEquals(List.of(), catalogIndex.filter(
+                new ItemFilter(sellerId, null, 6.0, 8.0, null, ItemFilter.Sort.ID), null, null, 10));
+    }
+
+    @Test
+    void entriesKeepEveryIdThroughGrowthAndRemoval() {
+        CatalogIndex.Entries entries = new CatalogIndex.Entries();
+        for (int id = 0; id < 10_000; id++) {
+            entries.put(id * 1024, id, id / 2.0);
+        }
+        for (int id = 0; id < 10_000; id += 2) {
+            entries.remove(id * 1024);
+        }
+        assertEquals(5_000, entries.size());
+        for (int id = 0; id < 10_000; id++) {
+            assertEquals(id % 2 == 1, entries.slot(id * 1024) >= 0, "id " + id);
+        }
+    }
+
+    // Every page of the filter, two items at a time
+    private List<Long> walk(ItemFilter filter) {
+        assertTrue(catalogIndex.isEnabled());
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        do {
+            CursorPage<ItemSummary> page = itemService.filterItems(filter, after, 2);
+            page.getContent().forEach(row -> ids.add(row.id()));
+            after = page.getNextCursor();
+        } while (after != null);
+        return ids;
+    }
+
+    private List<Long> sql(ItemFilter filter) {
+        PageRequest everything = PageRequest.of(0, 1000);
+        List<ItemSummary> rows = switch (filter.sort()) {
+            case ID -> itemRepository.filterAfterId(filter.sellerId(), filter.inStock(), filter.minPrice(),
+                    filter.maxPrice(), filter.maxQuantity(), 0L, everything);
+            case PRICE_ASC -> itemRepository.filterByPriceAsc(filter.sellerId(), filter.inStock(), filter.minPrice(),
+                    filter.maxPrice(), filter.maxQuantity(), null, 0L, everything);
+            case PRICE_DESC -> itemRepository.filterByPriceDesc(filter.sellerId(), filter.inStock(), filter.minPrice(),
+                    filter.maxPrice(), filter.maxQuantity(), null, 0L, everything);
+        };
+        return rows.stream().map(ItemSummary::id).toList();
+    }
+}
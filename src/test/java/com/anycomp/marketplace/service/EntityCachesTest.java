@@ -0,0 +1,80 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityCachesTest {
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void salesAdjustTheCachedItemInsteadOfEvictingIt() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Cache Seller", "cache-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Cache Buyer", "cache-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Cached", "Hot item", 1.0, 20, null), seller.getId());
+
+        assertEquals(20, itemService.getItemById(item.getId()).orElseThrow().quantity());
+        double missesBefore = misses();
+
+        Purchase first = purchaseService.buyItem(buyer.getId(), item.getId(), 3);
+        purchaseService.buyItems(List.of(new PurchaseService.PurchaseLine(buyer.getId(), item.getId(), 2)));
+        assertEquals(15, itemService.getItemById(item.getId()).orElseThrow().quantity());
+
+        purchaseService.cancelPurchase(first.getId());
+        ItemSummary cached = itemService.getItemById(item.getId()).orElseThrow();
+        assertEquals(18, cached.quantity());
+        assertEquals(itemRepository.findQuantityById(item.getId()).orElseThrow(), cached.quantity());
+        assertEquals(missesBefore, misses());
+    }
+
+    @Test
+    void updatesEvictTheCachedItem() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Evict Seller", "evict-seller-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Before", "Renamed item", 1.0, 5, null), seller.getId());
+        assertEquals("Before", itemService.getItemById(item.getId()).orElseThrow().name());
+
+        itemService.updateItem(item.getId(), new Item("After", "Renamed item", 2.0, 7, null));
+        ItemSummary cached = itemService.getItemById(item.getId()).orElseThrow();
+        assertEquals("After", cached.name());
+        assertEquals(7, cached.quantity());
+    }
+
+    private double misses() {
+        return meterRegistry.get("marketplace.cache.gets").tags("cache", "items", "result", "miss")
+                .functionCounter().count();
+    }
+}
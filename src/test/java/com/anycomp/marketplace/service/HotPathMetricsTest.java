@@ -0,0 +1,58 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HotPathMetricsTest {
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void hotPathsPublishTimersAndHibernateStatistics() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Metrics Seller", "metrics-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Metrics Buyer", "metrics-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Metrics Item", "Timed", 4.0, 10, null), seller.getId());
+        purchaseService.buyItem(buyer.getId(), item.getId(), 1);
+        itemService.getAllItems(PageRequest.of(0, 10));
+
+        Timer buyItem = meterRegistry.find("marketplace.service")
+                .tag("class", PurchaseService.class.getName()).tag("method", "buyItem").timer();
+        assertNotNull(buyItem);
+        assertTrue(buyItem.count() >= 1);
+        assertNotNull(meterRegistry.find("marketplace.service").tag("method", "getAllItems").timer());
+
+        assertNotNull(meterRegistry.find("spring.data.repository.invocations").tag("method", "save").timer());
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer());
+        assertNotNull(meterRegistry.find("hibernate.statements").functionCounter());
+        assertNotNull(meterRegistry.find("hibernate.entities.loads").functionCounter());
+    }
+}
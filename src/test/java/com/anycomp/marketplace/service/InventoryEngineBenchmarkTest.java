@@ -0,0 +1,113 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compares admitting purchases of one hot item through the inventory engine
+// with the conditional per-row UPDATE used when the engine is disabled.
+// Tagged load, so it only runs with mvn -P load test.
+@SpringBootTest(properties = "marketplace.inventory.engine.enabled=true")
+@ActiveProfiles("test")
+@Tag("load")
+class InventoryEngineBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryEngineBenchmarkTest.class);
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 500;
+    private static final int INITIAL_STOCK = 10_000;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void engineAdmitsExactlyTheStockAndFlushesIt() throws Exception {
+        Seller seller = sellerRepository.save(new Seller("Bench Seller", "bench-seller@example.com"));
+        Long rowItemId = itemRepository.save(new Item("Row Item", null, 1.0, INITIAL_STOCK, seller)).getId();
+        Long engineItemId = itemRepository.save(new Item("Engine Item", null, 1.0, INITIAL_STOCK, seller)).getId();
+
+        AtomicInteger rowAdmitted = new AtomicInteger();
+        double rowRate = run("per-row UPDATE", rowAdmitted, itemId -> Boolean.TRUE.equals(transactionTemplate.execute(
+                status -> itemRepository.decrementStock(rowItemId, 1) > 0)));
+        AtomicInteger engineAdmitted = new AtomicInteger();
+        double engineRate = run("inventory engine", engineAdmitted, itemId -> Boolean.TRUE.equals(
+                transactionTemplate.execute(status -> inventoryEngine.reserve(engineItemId, 1))));
+
+        inventoryEngine.flush();
+
+        assertEquals(INITIAL_STOCK, rowAdmitted.get());
+        assertEquals(INITIAL_STOCK, engineAdmitted.get());
+        assertEquals(0, inventoryEngine.getAvailable(engineItemId));
+        assertEquals(0, itemRepository.findQuantityById(rowItemId).orElseThrow());
+        assertEquals(0, itemRepository.findQuantityById(engineItemId).orElseThrow());
+        assertTrue(engineRate > rowRate, "engine should admit attempts faster than the per-row UPDATE");
+    }
+
+    // Attempts per second
+    private double run(String label, AtomicInteger admitted, LongPredicate attempt) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            Callable<Void> worker = () -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (attempt.test(i)) {
+                        admitted.incrementAndGet();
+                    }
+                }
+                return null;
+            };
+            futures.add(executor.submit(worker));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        double rate = attempts / (elapsedNanos / 1_000_000_000.0);
+        log.info("{}: {} attempts in {} ms ({} attempts/s), {} admitted", label, attempts,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(rate), admitted.get());
+        return rate;
+    }
+}
@@ -0,0 +1,69 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "marketplace.inventory.engine.enabled=true")
+@ActiveProfiles("test")
+class InventoryEngineTest {
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void aFlushDuringAnAbsoluteUpdateDoesNotDecrementTheNewQuantity() throws Exception {
+        Seller seller = sellerRepository.save(new Seller("Engine Seller", "engine-seller@example.com"));
+        Long itemId = itemService.createItem(new Item("Engine Item", null, 1.0, 10, seller), seller.getId()).getId();
+        transactionTemplate.executeWithoutResult(status -> inventoryEngine.reserve(itemId, 3));
+
+        ExecutorService flusher = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                itemService.updateItemQuantity(itemId, 50);
+                entityManager.flush();
+                // The update holds the row; a flush writing back the 3 sold would wait for it and
+                // then take them off the new quantity
+                try {
+                    flusher.submit(inventoryEngine::flush).get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            flusher.shutdown();
+        }
+        inventoryEngine.flush();
+
+        assertEquals(50, inventoryEngine.getAvailable(itemId));
+        assertEquals(50, itemRepository.findQuantityById(itemId).orElseThrow());
+    }
+}
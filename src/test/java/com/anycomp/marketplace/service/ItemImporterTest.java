@@ -0,0 +1,127 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.ItemImportReport;
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.exception.InvalidRequestException;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ItemImporterTest {
+
+    private static final int VALID_ROWS = 2_500;
+
+    @Autowired
+    private ItemImporter itemImporter;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void csvImportInsertsValidRowsAndReportsTheRest() throws Exception {
+        Seller seller = newSeller();
+        StringBuilder csv = new StringBuilder("name,description,price,quantity\n");
+        for (int i = 0; i < VALID_ROWS; i++) {
+            csv.append("Item ").append(i).append(",Plain,").append(1 + i % 7).append(".5,").append(i % 20).append('\n');
+        }
+        csv.append("\"Mug, large\",\"Says \"\"hi\"\"\non two lines\",3.0,1\n");
+        csv.append("x".repeat(256)).append(",Name too long,1.0,1\n");
+        csv.append(",No name,1.0,1\n");
+        csv.append("Free,Bad price,-1,1\n");
+        csv.append("Odd,Bad quantity,1.0,many\n");
+
+        ItemImportReport report = itemImporter.importItems(seller.getId(), DataFormat.CSV, stream(csv.toString()));
+
+        assertEquals(VALID_ROWS + 1, report.imported());
+        assertEquals(4, report.failed());
+        assertFalse(report.errorsTruncated());
+        assertEquals(List.of("Name must be at most 255 characters", "Name is required", "Price must be positive",
+                        "Invalid quantity: many"),
+                report.errors().stream().map(ItemImportReport.RowError::message).toList());
+        // Header on line 1 and the quoted row on two lines before the rejected ones
+        long firstRejected = VALID_ROWS + 4;
+        assertEquals(List.of(firstRejected, firstRejected + 1, firstRejected + 2, firstRejected + 3),
+                report.errors().stream().map(ItemImportReport.RowError::line).toList());
+        assertEquals(VALID_ROWS + 1, itemRepository.findBySellerId(seller.getId(), PageRequest.of(0, 1)).getTotalElements());
+
+        ItemSummary quoted = itemRepository.findByNameContainingIgnoreCase("Mug, large", 
+                PageRequest.of(0, 10, Sort.by("id"))).getContent().stream()
+                .filter(item -> seller.getId().equals(item.sellerId()))
+                .findFirst().orElseThrow();
+        assertEquals("Says \"hi\"\non two lines", quoted.description());
+    }
+
+    @Test
+    void ndjsonImportReportsLineNumbers() throws Exception {
+        Seller seller = newSeller();
+        String ndjson = "{\"name\":\"Lamp\",\"description\":\"Desk\",\"price\":12.5,\"quantity\":3}\n"
+                + "\n"
+                + "{\"name\":\"Broken\",\"price\":\n"
+                + "{\"name\":\"Chair\",\"price\":40,\"quantity\":-2}\n"
+                + "{\"name\":\"Table\",\"price\":99.0,\"quantity\":1}\n";
+
+        ItemImportReport report = itemImporter.importItems(seller.getId(), DataFormat.NDJSON, stream(ndjson));
+
+        assertEquals(2, report.imported());
+        assertEquals(2, report.failed());
+        assertEquals(List.of(3L, 4L), report.errors().stream().map(ItemImportReport.RowError::line).toList());
+    }
+
+    @Test
+    void overLongRowsAreRejectedAndTheImportGoesOn() throws Exception {
+        Seller seller = newSeller();
+        String huge = "y".repeat(ItemImporter.MAX_ROW_LENGTH);
+        String csv = "name,price,quantity\n"
+                + "Pen," + huge + ",1\n"
+                + "\"Quoted\n" + huge + "\",1.0,1\n"
+                + "Ink,2.0,5\n";
+        String ndjson = "{\"name\":\"" + huge + "\",\"price\":1,\"quantity\":1}\n"
+                + "{\"name\":\"Nib\",\"price\":1.5,\"quantity\":2}\n";
+
+        ItemImportReport fromCsv = itemImporter.importItems(seller.getId(), DataFormat.CSV, stream(csv));
+        ItemImportReport fromNdjson = itemImporter.importItems(seller.getId(), DataFormat.NDJSON, stream(ndjson));
+
+        assertEquals(1, fromCsv.imported());
+        assertEquals(List.of(2L, 3L), fromCsv.errors().stream().map(ItemImportReport.RowError::line).toList());
+        assertEquals(1, fromNdjson.imported());
+        assertEquals(List.of(1L), fromNdjson.errors().stream().map(ItemImportReport.RowError::line).toList());
+    }
+
+    @Test
+    void aBadHeaderIsAnInvalidRequest() {
+        Long sellerId = newSeller().getId();
+        assertThrows(InvalidRequestException.class,
+                () -> itemImporter.importItems(sellerId, DataFormat.CSV, stream("name,price\nPen,1.0\n")));
+        assertThrows(InvalidRequestException.class,
+                () -> itemImporter.importItems(sellerId, DataFormat.CSV, stream("name,\"price,quantity\n")));
+    }
+
+    private Seller newSeller() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        return sellerRepository.save(new Seller("Import Seller", "import-seller-" + run + "@example.com"));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,87 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LiveCountsTest {
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private LiveCounts liveCounts;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Test
+    void countsFollowServiceWritesWithoutQueries() {
+        long items = itemService.getTotalItemsCount();
+        long available = itemService.getAvailableItemsCount();
+        long purchases = purchaseService.getTotalPurchasesCount();
+        long sellers = sellerService.getTotalSellersCount();
+        long buyers = buyerService.getTotalBuyersCount();
+
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Count Seller", "count-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Count Buyer", "count-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Counted", "Two in stock", 1.0, 2, null), seller.getId());
+        Item spare = itemService.createItem(new Item("Spare", "Deleted again", 1.0, 1, null), seller.getId());
+        itemService.deleteItem(spare.getId());
+        Purchase first = purchaseService.buyItem(buyer.getId(), item.getId(), 1);
+        purchaseService.buyItem(buyer.getId(), item.getId(), 1);
+
+        assertEquals(items + 1, itemService.getTotalItemsCount());
+        assertEquals(available, itemService.getAvailableItemsCount(), "sold out");
+        assertEquals(purchases + 2, purchaseService.getTotalPurchasesCount());
+        assertEquals(sellers + 1, sellerService.getTotalSellersCount());
+        assertEquals(buyers + 1, buyerService.getTotalBuyersCount());
+
+        purchaseService.cancelPurchase(first.getId());
+        assertEquals(purchases + 1, purchaseService.getTotalPurchasesCount());
+        assertEquals(available + 1, itemService.getAvailableItemsCount(), "back in stock");
+
+        Seller other = sellerService.createSeller(new Seller("Other Seller", "count-other-" + run + "@example.com"));
+        sellerService.deleteSeller(other.getId());
+        assertEquals(sellers + 1, sellerService.getTotalSellersCount());
+    }
+
+    @Test
+    void reconcilePicksUpRowsWrittenAroundTheServices() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerRepository.save(new Seller("Direct Seller", "direct-seller-" + run + "@example.com"));
+        itemRepository.save(new Item("Direct", "Inserted by hand", 1.0, 5, seller));
+
+        liveCounts.reconcile();
+
+        assertEquals(itemRepository.countTotalItems(), itemService.getTotalItemsCount());
+        assertEquals(itemRepository.countAvailableItems(), itemService.getAvailableItemsCount());
+        assertEquals(sellerRepository.countTotalSellers(), sellerService.getTotalSellersCount());
+    }
+}
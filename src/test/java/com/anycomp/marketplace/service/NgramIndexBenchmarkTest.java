@@ -0,0 +1,67 @@
+package com.anycomp.marketplace.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Substring search over 1M item names: n-gram index vs. the full scan a LIKE '%q%' query
+// performs. Tagged load, so it only runs with mvn -P load test.
+@Tag("load")
+class NgramIndexBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(NgramIndexBenchmarkTest.class);
+
+    private static final int ITEMS = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final int MIN_SPEEDUP = 2;
+    private static final String[] QUERIES = {"wireless", "steel bottle", "zzz-no-match", "edition 42"};
+
+    private static NgramIndex index;
+    private static List<String> names;
+
+    @BeforeAll
+    static void buildCatalog() {
+        names = NgramIndexTest.catalog(ITEMS);
+        index = new NgramIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < names.size(); i++) {
+            index.put((long) i + 1, names.get(i));
+        }
+        log.info("Indexed {} names in {} ms", ITEMS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Best of a few rounds each, so one GC pause does not decide the comparison
+    @Test
+    void indexBeatsFullScan() {
+        for (String query : QUERIES) {
+            List<Long> expected = NgramIndexTest.scan(names, query);
+            long scanNanos = Long.MAX_VALUE;
+            long indexNanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long scanStart = System.nanoTime();
+                NgramIndexTest.scan(names, query);
+                scanNanos = Math.min(scanNanos, System.nanoTime() - scanStart);
+
+                long indexStart = System.nanoTime();
+                List<Long> actual = index.search(query);
+                indexNanos = Math.min(indexNanos, System.nanoTime() - indexStart);
+                assertEquals(expected, actual);
+            }
+            log.info("'{}': {} matches, full scan {} ms, index {} ms", query, expected.size(),
+                    String.format("%.2f", scanNanos / 1e6), String.format("%.2f", indexNanos / 1e6));
+            // A query matching a good share of the catalog copies as many ids as the scan finds
+            if (expected.size() < ITEMS / 50) {
+                assertTrue(indexNanos * MIN_SPEEDUP < scanNanos,
+                        "index should be at least " + MIN_SPEEDUP + "x faster than a scan for '" + query + "'");
+            }
+        }
+    }
+}
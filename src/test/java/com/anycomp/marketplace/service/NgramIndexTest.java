@@ -0,0 +1,68 @@
+package com.anycomp.marketplace.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Substring search through the n-gram index returns what a LIKE '%q%' scan would
+class NgramIndexTest {
+
+    private static final int ITEMS = 20_000;
+    private static final String[] QUERIES = {"wireless", "steel bottle", "mug", "zzz-no-match", "edition 42"};
+
+    private static final String[] ADJECTIVES = {"Wireless", "Stainless", "Vintage", "Organic", "Compact", "Deluxe"};
+    private static final String[] NOUNS = {"Headphones", "Steel Bottle", "Coffee Mug", "Backpack", "Desk Lamp", "Keyboard"};
+
+    private static NgramIndex index;
+    private static List<String> names;
+
+    @BeforeAll
+    static void buildCatalog() {
+        index = new NgramIndex();
+        names = catalog(ITEMS);
+        for (int i = 0; i < names.size(); i++) {
+            index.put((long) i + 1, names.get(i));
+        }
+    }
+
+    @Test
+    void indexMatchesFullScan() {
+        for (String query : QUERIES) {
+            assertEquals(scan(names, query), index.search(query), query);
+        }
+    }
+
+    @Test
+    void shortQueriesFallBackToDatabase() {
+        assertNull(index.search("mu"));
+    }
+
+    static List<String> catalog(int size) {
+        Random random = new Random(42);
+        List<String> catalog = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            catalog.add(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " Edition " + random.nextInt(1000));
+        }
+        return catalog;
+    }
+
+    // What LIKE '%q%' over the names would return, in id order
+    static List<Long> scan(List<String> names, String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Long> matches = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add((long) i + 1);
+            }
+        }
+        return matches;
+    }
+}
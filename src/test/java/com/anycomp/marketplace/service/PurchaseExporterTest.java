@@ -0,0 +1,106 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PurchaseExporterTest {
+
+    private static final int PURCHASES = 2_500;
+
+    @Autowired
+    private PurchaseExporter purchaseExporter;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportsEverySellerPurchaseInIdOrder() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerRepository.save(new Seller("Export Seller", "export-seller-" + run + "@example.com"));
+        Buyer buyer = buyerRepository.save(new Buyer("Export Buyer", "export-buyer-" + run + "@example.com"));
+        Item item = itemRepository.save(new Item("Mug, \"large\"", "Exported", 4.0, 10, seller));
+        List<Purchase> purchases = new ArrayList<>();
+        for (int i = 0; i < PURCHASES; i++) {
+            purchases.add(new Purchase(buyer, item, 1 + i % 3));
+        }
+        purchaseRepository.saveAll(purchases);
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        long csvRows = purchaseExporter.export(DataFormat.CSV, null, null, seller.getId(), csv);
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(PURCHASES, csvRows);
+        assertEquals(PURCHASES + 1, lines.length);
+        assertTrue(lines[1].split(",", 5)[4].startsWith("\"Mug, \"\"large\"\"\","));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long jsonRows = purchaseExporter.export(DataFormat.NDJSON, null, null, seller.getId(), ndjson);
+        String[] records = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(PURCHASES, jsonRows);
+        long previousId = 0;
+        for (String record : records) {
+            JsonNode node = objectMapper.readTree(record);
+            assertEquals(seller.getId().longValue(), node.get("sellerId").asLong());
+            assertEquals(node.get("quantity").asInt() * 4.0, node.get("totalPrice").asDouble(), 1e-9);
+            long id = node.get("id").asLong();
+            assertTrue(id > previousId);
+            previousId = id;
+        }
+    }
+
+    @Test
+    void onlyTwoExportsRunAtOnce() {
+        PurchaseExporter.Slot first = purchaseExporter.tryReserve();
+        PurchaseExporter.Slot second = purchaseExporter.tryReserve();
+        try {
+            assertNotNull(first);
+            assertNotNull(second);
+            assertNull(purchaseExporter.tryReserve());
+
+            second.close();
+            second.close();
+            PurchaseExporter.Slot third = purchaseExporter.tryReserve();
+            assertNotNull(third);
+            third.close();
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+}
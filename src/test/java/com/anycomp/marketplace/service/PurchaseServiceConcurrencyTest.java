@@ -0,0 +1,101 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerRepository;
+import com.anycomp.marketplace.repository.ItemRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.SellerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Correctness under contention only; throughput on a hot item is measured by the load-tagged
+// BuyItemBenchmarkTest and InventoryEngineBenchmarkTest
+@SpringBootTest
+@ActiveProfiles("test")
+class PurchaseServiceConcurrencyTest {
+    
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 200;
+    private static final int INITIAL_STOCK = 2_000;
+    
+    @Autowired
+    private PurchaseService purchaseService;
+    
+    @Autowired
+    private SellerRepository sellerRepository;
+    
+    @Autowired
+    private BuyerRepository buyerRepository;
+    
+    @Autowired
+    private ItemRepository itemRepository;
+    
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+    
+    @Test
+    void hotItemIsNeverOversold() throws Exception {
+        Seller seller = sellerRepository.save(new Seller("Flash Seller", "flash-seller@example.com"));
+        Buyer buyer = buyerRepository.save(new Buyer("Flash Buyer", "flash-buyer@example.com"));
+        Item item = itemRepository.save(new Item("Hot Item", "Flash sale item", 9.99, INITIAL_STOCK, seller));
+        Long itemId = item.getId();
+        Long buyerId = buyer.getId();
+        long purchasesBefore = countPurchases(itemId);
+        
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        purchaseService.buyItem(buyerId, itemId, 1);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        Item reloaded = itemRepository.findById(itemId).orElseThrow();
+        assertEquals(INITIAL_STOCK, succeeded.get());
+        assertEquals(attempts - INITIAL_STOCK, rejected.get());
+        assertEquals(0, reloaded.getQuantity());
+        assertEquals(INITIAL_STOCK, countPurchases(itemId) - purchasesBefore);
+    }
+    
+    private long countPurchases(Long itemId) {
+        return purchaseRepository.findByItemId(itemId, PageRequest.of(0, 1)).getTotalElements();
+    }
+}
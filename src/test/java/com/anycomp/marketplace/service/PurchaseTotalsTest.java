@@ -0,0 +1,119 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.BuyerSpendingRepository;
+import com.anycomp.marketplace.repository.PurchaseRepository;
+import com.anycomp.marketplace.repository.PurchaseTotalDeltaRepository;
+import com.anycomp.marketplace.repository.SellerRevenueRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PurchaseTotalsTest {
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private PurchaseTotals purchaseTotals;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private SellerRevenueRepository sellerRevenueRepository;
+
+    @Autowired
+    private BuyerSpendingRepository buyerSpendingRepository;
+
+    @Autowired
+    private PurchaseTotalDeltaRepository purchaseTotalDeltaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void totalsFollowPurchasesAndCancellations() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Totals Seller", "totals-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Totals Buyer", "totals-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Totals Item", "Priced item", 2.5, 100, null), seller.getId());
+
+        Purchase first = purchaseService.buyItem(buyer.getId(), item.getId(), 4);
+        purchaseService.buyItems(List.of(
+                new PurchaseService.PurchaseLine(buyer.getId(), item.getId(), 2),
+                new PurchaseService.PurchaseLine(buyer.getId(), item.getId(), 1)));
+        assertTotals(seller.getId(), buyer.getId(), 17.5);
+
+        purchaseService.cancelPurchase(first.getId());
+        assertTotals(seller.getId(), buyer.getId(), 7.5);
+    }
+
+    @Test
+    void reconciliationRebuildsDriftedTotals() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Drift Seller", "drift-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Drift Buyer", "drift-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Drift Item", "Priced item", 3.0, 100, null), seller.getId());
+        purchaseService.buyItem(buyer.getId(), item.getId(), 2);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            sellerRevenueRepository.addToTotal(seller.getId(), 100.0);
+            buyerSpendingRepository.deleteById(buyer.getId());
+        });
+        purchaseTotals.reconcile();
+
+        assertTotals(seller.getId(), buyer.getId(), 6.0);
+    }
+
+    @Test
+    void checkoutsAppendDeltasThatAreFoldedIntoTheStoredTotals() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Fold Seller", "fold-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Fold Buyer", "fold-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Fold Item", "Priced item", 1.5, 100, null), seller.getId());
+
+        double storedBefore = sellerRevenueRepository.findById(seller.getId()).orElseThrow().getTotalRevenue();
+        purchaseService.buyItem(buyer.getId(), item.getId(), 2);
+        purchaseService.buyItem(buyer.getId(), item.getId(), 4);
+        assertEquals(0.0, storedBefore, 1e-9);
+        assertTotals(seller.getId(), buyer.getId(), 9.0);
+
+        purchaseTotals.fold();
+        assertEquals(9.0, sellerRevenueRepository.findById(seller.getId()).orElseThrow().getTotalRevenue(), 1e-9);
+        assertEquals(9.0, buyerSpendingRepository.findById(buyer.getId()).orElseThrow().getTotalSpending(), 1e-9);
+        assertEquals(0, purchaseTotalDeltaRepository.findAll().stream()
+                .filter(delta -> delta.getSellerId().equals(seller.getId()))
+                .count());
+        assertTotals(seller.getId(), buyer.getId(), 9.0);
+    }
+
+    private void assertTotals(Long sellerId, Long buyerId, double expected) {
+        assertEquals(expected, purchaseService.getTotalRevenueForSeller(sellerId), 1e-9);
+        assertEquals(expected, purchaseService.getTotalSpendingForBuyer(buyerId), 1e-9);
+        assertEquals(expected, purchaseRepository.getTotalRevenueForSeller(sellerId), 1e-9);
+        assertEquals(expected, sellerRevenueRepository.findTotalBySellerId(sellerId).orElseThrow(), 1e-9);
+        assertEquals(expected, buyerSpendingRepository.findTotalByBuyerId(buyerId).orElseThrow(), 1e-9);
+    }
+}
@@ -0,0 +1,136 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.SalesBucket;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.RollupGranularity;
+import com.anycomp.marketplace.entity.Seller;
+import com.anycomp.marketplace.repository.SalesRollupDeltaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SalesRollupsTest {
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private SalesRollups salesRollups;
+
+    @Autowired
+    private SalesRollupDeltaRepository salesRollupDeltaRepository;
+
+    @Test
+    void seriesIncludesFoldedAndUnfoldedSales() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Rollup Seller", "rollup-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Rollup Buyer", "rollup-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Rollup Item", "Charted", 2.0, 100, null), seller.getId());
+
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now().plusDays(1);
+
+        Purchase first = purchaseService.buyItem(buyer.getId(), item.getId(), 3);
+        purchaseService.buyItem(buyer.getId(), item.getId(), 2);
+        assertSeriesTotals(RollupGranularity.HOUR, from, to, item.getId(), null, 5, 10.0, 2);
+        // Committed with the purchases, not held in memory until the fold
+        assertEquals(5, salesRollupDeltaRepository.findHoursByItemId(from, to, item.getId()).stream()
+                .mapToLong(SalesBucket::quantity).sum());
+
+        salesRollups.fold();
+        assertTrue(salesRollupDeltaRepository.findHoursByItemId(from, to, item.getId()).isEmpty());
+        assertSeriesTotals(RollupGranularity.DAY, from, to, item.getId(), null, 5, 10.0, 2);
+        assertSeriesTotals(RollupGranularity.HOUR, from, to, null, seller.getId(), 5, 10.0, 2);
+
+        purchaseService.cancelPurchase(first.getId());
+        assertSeriesTotals(RollupGranularity.DAY, from, to, null, seller.getId(), 2, 4.0, 1);
+        salesRollups.fold();
+        assertSeriesTotals(RollupGranularity.HOUR, from, to, item.getId(), null, 2, 4.0, 1);
+    }
+
+    @Test
+    void seriesReadDuringFoldsCountsEachSaleOnce() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Fold Seller", "fold-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Fold Buyer", "fold-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Fold Item", "Read mid-fold", 1.0, 100, null), seller.getId());
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now().plusDays(1);
+
+        int sales = 40;
+        // A sale commits between started and sold, so a read sees between the two
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < sales; i++) {
+                started.incrementAndGet();
+                purchaseService.buyItem(buyer.getId(), item.getId(), 1);
+                sold.incrementAndGet();
+                salesRollups.fold();
+            }
+        });
+        try {
+            while (!writer.isDone()) {
+                int before = sold.get();
+                long counted = salesRollups.series(RollupGranularity.DAY, from, to, item.getId(), null).stream()
+                        .mapToLong(SalesBucket::quantity).sum();
+                int after = started.get();
+                assertTrue(counted >= before && counted <= after,
+                        "counted " + counted + " with " + before + " to " + after + " sold");
+            }
+            writer.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertSeriesTotals(RollupGranularity.HOUR, from, to, item.getId(), null, sales, sales, sales);
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedRanges() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> purchaseService.getSalesSeries(RollupGranularity.DAY, now, now, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> purchaseService.getSalesSeries(RollupGranularity.HOUR, now.minusYears(5), now, null, null));
+    }
+
+    private void assertSeriesTotals(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                    Long itemId, Long sellerId, long quantity, double revenue, long orders) {
+        List<SalesBucket> series = purchaseService.getSalesSeries(granularity, from, to, itemId, sellerId);
+        // A run that straddles an hour or midnight splits the sales over two buckets
+        long totalQuantity = series.stream().mapToLong(SalesBucket::quantity).sum();
+        double totalRevenue = series.stream().mapToDouble(SalesBucket::revenue).sum();
+        long totalOrders = series.stream().mapToLong(SalesBucket::orders).sum();
+        assertEquals(quantity, totalQuantity);
+        assertEquals(revenue, totalRevenue, 1e-9);
+        assertEquals(orders, totalOrders);
+    }
+}
@@ -0,0 +1,139 @@
+package com.anycomp.marketplace.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<Long, String> flight = flight(Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        List<AtomicReference<String>> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            AtomicReference<String> result = new AtomicReference<>();
+            results.add(result);
+            threads.add(new Thread(() -> result.set(flight.execute(42L, () -> {
+                loads.incrementAndGet();
+                entered.countDown();
+                await(finish);
+                return "item-42";
+            }))));
+        }
+        threads.get(0).start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        for (Thread follower : threads.subList(1, threads.size())) {
+            follower.start();
+        }
+        awaitWaiting(threads.subList(1, threads.size()));
+        finish.countDown();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        assertEquals(1, loads.get());
+        results.forEach(result -> assertEquals("item-42", result.get()));
+        assertEquals(1, count("executed"));
+        assertEquals(7, count("coalesced"));
+    }
+
+    @Test
+    void waitersSeeTheLoadersFailure() throws Exception {
+        SingleFlight<Long, String> flight = flight(Duration.ofSeconds(10));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicReference<Throwable> seenByWaiter = new AtomicReference<>();
+
+        Thread loader = new Thread(() -> assertThrows(IllegalStateException.class, () ->
+                flight.execute(7L, () -> {
+                    entered.countDown();
+                    await(finish);
+                    throw new IllegalStateException("database down");
+                })));
+        Thread waiter = new Thread(() -> {
+            try {
+                flight.execute(7L, () -> "should not run");
+            } catch (RuntimeException e) {
+                seenByWaiter.set(e);
+            }
+        });
+        loader.start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        waiter.start();
+        awaitWaiting(List.of(waiter));
+        finish.countDown();
+        loader.join(10_000);
+        waiter.join(10_000);
+
+        assertEquals("database down", seenByWaiter.get().getMessage());
+    }
+
+    @Test
+    void waiterGivesUpAfterTheMaxWaitAndLoadsItself() throws Exception {
+        SingleFlight<Long, String> flight = flight(Duration.ofMillis(50));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread loader = new Thread(() -> flight.execute(1L, () -> {
+            entered.countDown();
+            await(finish);
+            return "slow";
+        }));
+        loader.start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        try {
+            assertEquals("own", flight.execute(1L, () -> "own"));
+            assertEquals(1, count("timed.out"));
+        } finally {
+            finish.countDown();
+            loader.join(10_000);
+        }
+    }
+
+    private SingleFlight<Long, String> flight(Duration maxWait) {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", maxWait, id -> "id");
+        flight.bindTo(registry);
+        return flight;
+    }
+
+    private double count(String result) {
+        return registry.get("marketplace.singleflight.calls")
+                .tag("flight", "test").tag("key", "id").tag("result", result)
+                .counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Waiters park on the shared load's future
+    private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline
+                && !threads.stream().allMatch(thread -> thread.getState() == Thread.State.TIMED_WAITING)) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.anycomp.marketplace.service;
+
+import com.anycomp.marketplace.dto.ItemSummary;
+import com.anycomp.marketplace.entity.Buyer;
+import com.anycomp.marketplace.entity.Item;
+import com.anycomp.marketplace.entity.Purchase;
+import com.anycomp.marketplace.entity.Seller;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StockIndexTest {
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private StockIndex stockIndex;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void lowStockFollowsSalesCancellationsAndUpdates() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Stock Seller", "stock-seller-" + run + "@example.com"));
+        Seller other = sellerService.createSeller(new Seller("Other Seller", "other-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Stock Buyer", "stock-buyer-" + run + "@example.com"));
+        Item scarce = itemService.createItem(new Item("Scarce", "Few left", 1.0, 3, null), seller.getId());
+        Item plenty = itemService.createItem(new Item("Plenty", "Many left", 1.0, 10, null), seller.getId());
+        Item elsewhere = itemService.createItem(new Item("Elsewhere", "Other seller", 1.0, 1, null), other.getId());
+
+        assertEquals(List.of(scarce.getId()), lowStock(5, seller.getId()));
+
+        Purchase purchase = purchaseService.buyItem(buyer.getId(), plenty.getId(), 6);
+        assertEquals(List.of(scarce.getId(), plenty.getId()), lowStock(5, seller.getId()));
+        assertTrue(lowStock(5, null).containsAll(List.of(elsewhere.getId(), scarce.getId(), plenty.getId())));
+
+        purchaseService.cancelPurchase(purchase.getId());
+        assertEquals(List.of(scarce.getId()), lowStock(5, seller.getId()));
+
+        itemService.updateItemQuantity(scarce.getId(), 50);
+        assertEquals(List.of(), lowStock(5, seller.getId()));
+
+        itemService.updateItemQuantity(plenty.getId(), 0);
+        assertEquals(List.of(plenty.getId()), lowStock(0, seller.getId()));
+    }
+
+    @Test
+    void lowStockPagesInQuantityOrder() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Page Seller", "page-seller-" + run + "@example.com"));
+        Item three = itemService.createItem(new Item("Three", "Low", 1.0, 3, null), seller.getId());
+        Item one = itemService.createItem(new Item("One", "Lower", 1.0, 1, null), seller.getId());
+        Item two = itemService.createItem(new Item("Two", "Low", 1.0, 2, null), seller.getId());
+        itemService.createItem(new Item("Ten", "Plenty", 1.0, 10, null), seller.getId());
+
+        Page<ItemSummary> first = itemService.getLowStockItems(3, seller.getId(), PageRequest.of(0, 2));
+        Page<ItemSummary> second = itemService.getLowStockItems(3, seller.getId(), PageRequest.of(1, 2));
+
+        assertEquals(3, first.getTotalElements());
+        assertEquals(List.of(one.getId(), two.getId()), first.getContent().stream().map(ItemSummary::id).toList());
+        assertEquals(List.of(three.getId()), second.getContent().stream().map(ItemSummary::id).toList());
+    }
+
+    @Test
+    void reconcileRepairsDriftSeenTwice() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Drift Seller", "drift-seller-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Drifting", "Index only", 1.0, 10, null), seller.getId());
+
+        // A hook that landed out of order: the index moves, the table does not
+        stockIndex.adjust(item.getId(), -6);
+        assertEquals(List.of(item.getId()), lowStock(5, seller.getId()));
+
+        stockIndex.reconcile();
+        assertEquals(List.of(item.getId()), lowStock(5, seller.getId()), "a single sighting is not repaired");
+
+        stockIndex.reconcile();
+        assertEquals(List.of(), lowStock(5, seller.getId()));
+        assertEquals(List.of(item.getId()), lowStock(10, seller.getId()));
+    }
+
+    @Test
+    void feedSubscriptionsAreCappedPerSeller() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Busy Seller", "busy-seller-" + run + "@example.com"));
+        String feed = "/api/sellers/" + seller.getId() + "/low-stock/feed?threshold=1";
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get(feed)).andExpect(request().asyncStarted());
+        }
+        mockMvc.perform(get(feed)).andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void feedPushesThresholdCrossings() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Seller seller = sellerService.createSeller(new Seller("Feed Seller", "feed-seller-" + run + "@example.com"));
+        Buyer buyer = buyerService.createBuyer(new Buyer("Feed Buyer", "feed-buyer-" + run + "@example.com"));
+        Item item = itemService.createItem(new Item("Feed Item", "Watched", 1.0, 6, null), seller.getId());
+
+        MvcResult feed = mockMvc.perform(get("/api/sellers/" + seller.getId() + "/low-stock/feed?threshold=4"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        purchaseService.buyItem(buyer.getId(), item.getId(), 1);
+        Purchase crossing = purchaseService.buyItem(buyer.getId(), item.getId(), 2);
+        purchaseService.cancelPurchase(crossing.getId());
+
+        String events = awaitContent(feed, "event:RESTOCKED");
+        int low = events.indexOf("event:LOW");
+        assertTrue(low >= 0, events);
+        assertTrue(events.indexOf("event:LOW", low + 1) < 0, "only one downward crossing: " + events);
+        assertTrue(events.contains("\"quantity\":3"), events);
+        assertTrue(events.indexOf("event:RESTOCKED") > low, events);
+    }
+
+    private List<Long> lowStock(int threshold, Long sellerId) {
+        return itemService.getLowStockItems(threshold, sellerId, PageRequest.of(0, 1000)).getContent().stream()
+                .map(ItemSummary::id)
+                .toList();
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+}
@@ -0,0 +1,66 @@
+package com.anycomp.marketplace.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedStockTest {
+
+    private static final int THREADS = 8;
+    private static final int PURCHASES_PER_THREAD = 5_000;
+
+    @Test
+    void flushTakesEveryCommittedPurchaseExactlyOnce() throws Exception {
+        InventoryEngine.StripedStock stock = new InventoryEngine.StripedStock(4, THREADS * PURCHASES_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            buyers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < PURCHASES_PER_THREAD; i++) {
+                    assertTrue(stock.tryAcquire(1));
+                    stock.consumed(1);
+                }
+                return null;
+            }));
+        }
+
+        long flushed = 0;
+        start.countDown();
+        while (!buyers.stream().allMatch(Future::isDone)) {
+            flushed += stock.takeUnflushed();
+        }
+        for (Future<?> buyer : buyers) {
+            buyer.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        flushed += stock.takeUnflushed();
+
+        assertEquals((long) THREADS * PURCHASES_PER_THREAD, flushed);
+        assertEquals(0, stock.sum());
+        assertFalse(stock.tryAcquire(1));
+    }
+
+    @Test
+    void absoluteQuantityReplacesUnflushedConsumption() {
+        InventoryEngine.StripedStock stock = new InventoryEngine.StripedStock(4, 10);
+        assertTrue(stock.tryAcquire(3));
+        stock.consumed(3);
+        stock.restocked(1);
+
+        stock.set(20);
+        assertEquals(20, stock.sum());
+        assertEquals(0, stock.takeUnflushed());
+    }
+}